@@ -0,0 +1,72 @@
+package io.vertx.eventx;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import io.vertx.eventx.infrastructure.bus.BinaryCodec;
+import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+import io.vertx.eventx.objects.AggregateState;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Estimates the footprint of a cached state from its smile encoded size plus the command ids held for idempotency.
+ * <p>
+ * Caffeine weighs on every put, which is every append, so the encoded size is only measured when the aggregate
+ * doesn't declare one and the last known size is older than {@link #REWEIGH_EVERY_VERSIONS} versions.
+ * The size recorded whenever the state goes off-heap is reused as well.
+ */
+public class AggregateWeigher implements Weigher<AggregatePlainKey, Object> {
+  private static final int COMMAND_ID_BYTES = 96;
+  private static final int ENTRY_OVERHEAD_BYTES = 256;
+  private static final long REWEIGH_EVERY_VERSIONS = 64L;
+
+  @Override
+  public int weigh(AggregatePlainKey key, Object value) {
+    if (!(value instanceof AggregateState<?> aggregateState)) {
+      return ENTRY_OVERHEAD_BYTES;
+    }
+    final var stateBytes = stateBytes(aggregateState);
+    if (stateBytes < 0) {
+      return ENTRY_OVERHEAD_BYTES;
+    }
+    final long weight = ENTRY_OVERHEAD_BYTES + stateBytes + (long) aggregateState.knownCommands().size() * COMMAND_ID_BYTES;
+    return (int) Math.min(Integer.MAX_VALUE, weight);
+  }
+
+  private static long stateBytes(AggregateState<?> aggregateState) {
+    if (aggregateState.state() == null) {
+      return 0L;
+    }
+    final var declared = aggregateState.state().sizeInBytes();
+    if (declared.isPresent()) {
+      return declared.get();
+    }
+    final long version = aggregateState.currentVersion() == null ? 0L : aggregateState.currentVersion();
+    if (aggregateState.encodedSize() >= 0 && version - aggregateState.encodedAtVersion() < REWEIGH_EVERY_VERSIONS) {
+      return aggregateState.encodedSize();
+    }
+    final var counter = new CountingOutputStream();
+    try {
+      BinaryCodec.SMILE_MAPPER.writeValue(counter, aggregateState.state());
+    } catch (IOException e) {
+      return -1L;
+    }
+    aggregateState.setEncodedSize((int) Math.min(Integer.MAX_VALUE, counter.count));
+    return counter.count;
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+    private long count = 0;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+
+}
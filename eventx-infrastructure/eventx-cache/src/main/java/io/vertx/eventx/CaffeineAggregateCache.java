@@ -1,18 +1,48 @@
 package io.vertx.eventx;
 
 
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
 import io.vertx.eventx.infrastructure.AggregateCache;
 import io.vertx.eventx.infrastructure.models.AggregateKey;
 import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+import io.vertx.eventx.objects.AggregateConfiguration;
 import io.vertx.eventx.objects.AggregateState;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
 
 public class CaffeineAggregateCache implements AggregateCache {
 
+  private final JsonObject configuration;
+  private final Map<Class<?>, AggregateConfiguration> configurations = new ConcurrentHashMap<>();
+
+  public CaffeineAggregateCache(JsonObject configuration) {
+    this.configuration = configuration;
+  }
+
   @Override
   public <T extends Aggregate> AggregateState<T> get(AggregateKey<T> aggregateKey) {
-    return CaffeineWrapper.get(aggregateKey.aggregateClass(), key(aggregateKey));
+    return CaffeineWrapper.get(aggregateKey.aggregateClass(), configuration(aggregateKey.aggregateClass()), key(aggregateKey));
+  }
+
+  @Override
+  public <T extends Aggregate> Uni<AggregateState<T>> get(AggregateKey<T> aggregateKey, Supplier<Uni<AggregateState<T>>> loader) {
+    return CaffeineWrapper.get(aggregateKey.aggregateClass(), configuration(aggregateKey.aggregateClass()), key(aggregateKey), loader);
+  }
+
+  @Override
+  public <T extends Aggregate> void invalidate(AggregateKey<T> aggregateKey) {
+    CaffeineWrapper.invalidate(aggregateKey.aggregateClass(), key(aggregateKey));
+  }
+
+  @Override
+  public <T extends Aggregate> void invalidateIf(Class<T> aggregateClass, Predicate<AggregateKey<T>> predicate) {
+    CaffeineWrapper.invalidateIf(aggregateClass, key -> predicate.test(new AggregateKey<>(aggregateClass, key.aggregateId(), key.tenantId())));
   }
 
   @NotNull
@@ -22,6 +52,12 @@ public class CaffeineAggregateCache implements AggregateCache {
 
   @Override
   public <T extends Aggregate> void put(AggregateKey<T> aggregateKey, AggregateState<T> aggregate) {
-    CaffeineWrapper.put(aggregate.aggregateClass(), key(aggregateKey), aggregate);
+    CaffeineWrapper.put(aggregate.aggregateClass(), configuration(aggregate.aggregateClass()), key(aggregateKey), aggregate);
+  }
+
+  private AggregateConfiguration configuration(Class<?> aggregateClass) {
+    return configurations.computeIfAbsent(aggregateClass, aClass -> configuration.getJsonObject(aClass.getSimpleName(), new JsonObject())
+      .mapTo(AggregateConfiguration.class)
+    );
   }
 }
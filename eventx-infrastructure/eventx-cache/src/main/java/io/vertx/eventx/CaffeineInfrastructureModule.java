@@ -2,14 +2,16 @@ package io.vertx.eventx;
 
 import io.activej.inject.annotation.Inject;
 import io.activej.inject.annotation.Provides;
+import io.vertx.core.json.JsonObject;
+import io.vertx.eventx.infrastructure.AggregateCache;
 import io.vertx.eventx.objects.EventxModule;
 
 public class CaffeineInfrastructureModule extends EventxModule {
 
   @Provides
   @Inject
-  CaffeineAggregateCache aggregateCache() {
-    return new CaffeineAggregateCache();
+  AggregateCache aggregateCache(JsonObject configuration) {
+    return new CaffeineAggregateCache(configuration);
   }
 
 
@@ -2,38 +2,212 @@ package io.vertx.eventx;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineStatsCounter;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
-import io.vertx.eventx.Aggregate;
+import io.vertx.eventx.infrastructure.misc.AggregateMetrics;
 import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+import io.vertx.eventx.objects.AggregateConfiguration;
 import io.vertx.eventx.objects.AggregateState;
 
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * One caffeine cache per aggregate class, shared by every actor of the class on the node.
+ * <p>
+ * Caches are bounded by the estimated size of the states they hold, so small hot aggregates stay resident
+ * while large ones that aren't accessed are the first to go. A cache is rebuilt if the class configuration changes.
+ */
 public class CaffeineWrapper {
   private CaffeineWrapper() {
   }
 
   private static final Logger logger = LoggerFactory.getLogger(CaffeineWrapper.class);
-  public static final Cache<AggregatePlainKey, Object> CAFFEINE = Caffeine.newBuilder()
-//    .executor(cmd -> context.runOnContext(cmd))
-    .expireAfterAccess(Duration.of(20, ChronoUnit.MINUTES))
-//    .recordStats()
-    .initialCapacity(500)
-    .evictionListener((key, value, reason) -> logger.info("Aggregate evicted from cache reason[" + reason + "]" + value))
-    .removalListener((key, value, reason) -> logger.info("Aggregate removed from cache reason[" + reason + "]" + value))
-    .build();
+  private static final Map<Class<?>, PolicyCache> CACHES = new ConcurrentHashMap<>();
+  private static final Map<AggregatePlainKey, Uni<Object>> IN_FLIGHT = new ConcurrentHashMap<>();
 
-  public static <T extends Aggregate> AggregateState<T> get(Class<T> aggregateClass, AggregatePlainKey k) {
-    final var valueObject = CAFFEINE.getIfPresent(k);
-    if (valueObject != null) {
-      return (AggregateState<T>) valueObject;
+  /**
+   * Looks the state up on heap then off-heap, a state found off-heap is put back on heap.
+   * The owner may have put a newer state in the meantime, the promotion never replaces a higher version.
+   */
+  public static <T extends Aggregate> AggregateState<T> get(Class<T> aggregateClass, AggregateConfiguration configuration, AggregatePlainKey k) {
+    final var cache = policyCache(aggregateClass, configuration);
+    if (cache == null) {
+      return null;
+    }
+    var state = (AggregateState<T>) cache.cache().getIfPresent(k);
+    if (state == null && cache.offHeap() != null) {
+      final var offHeapState = (AggregateState<T>) cache.offHeap().get(k);
+      if (offHeapState != null) {
+        state = (AggregateState<T>) cache.cache().asMap().compute(k, (key, current) -> newest(current, offHeapState));
+      }
+    }
+    return state;
+  }
+
+  private static Object newest(Object current, AggregateState<?> promoted) {
+    if (current instanceof AggregateState<?> currentState && version(currentState) >= version(promoted)) {
+      return currentState;
+    }
+    return promoted;
+  }
+
+  private static long version(AggregateState<?> state) {
+    return Objects.requireNonNullElse(state.currentVersion(), -1L);
+  }
+
+  public static <T extends Aggregate> void put(Class<T> aggregateClass, AggregateConfiguration configuration, AggregatePlainKey k, AggregateState<T> v) {
+    final var cache = policyCache(aggregateClass, configuration);
+    if (cache != null) {
+      cache.cache().put(k, v);
     }
-    return null;
   }
 
-  public static <T extends Aggregate> void put(Class<T> aggregateClass, AggregatePlainKey k, AggregateState<T> v) {
-    CAFFEINE.put(k, v);
+  /**
+   * Returns the cached state, or joins the load already in flight for the key, or starts one.
+   * Concurrent misses on the same aggregate share a single replay, each caller gets the result on its own context.
+   */
+  public static <T extends Aggregate> Uni<AggregateState<T>> get(
+    Class<T> aggregateClass,
+    AggregateConfiguration configuration,
+    AggregatePlainKey k,
+    Supplier<Uni<AggregateState<T>>> loader
+  ) {
+    final var state = get(aggregateClass, configuration, k);
+    if (state != null) {
+      return Uni.createFrom().item(state);
+    }
+    final var context = Vertx.currentContext();
+    final var load = IN_FLIGHT.computeIfAbsent(k, key -> Uni.createFrom().<Object>deferred(() -> loader.get().map(loaded -> (Object) loaded))
+      // only one load per key can be in the map, it is removed once it completes so later misses start afresh
+      .onTermination().invoke(() -> IN_FLIGHT.remove(key))
+      .memoize().indefinitely()
+    );
+    return onContext(load.map(object -> (AggregateState<T>) object), context);
   }
+
+  private static <V> Uni<V> onContext(Uni<V> uni, Context context) {
+    if (context == null) {
+      return uni;
+    }
+    return uni.emitOn(command -> {
+        if (Vertx.currentContext() == context) {
+          command.run();
+        } else {
+          context.runOnContext(avoid -> command.run());
+        }
+      }
+    );
+  }
+
+  public static <T extends Aggregate> void invalidate(Class<T> aggregateClass, AggregatePlainKey k) {
+    final var cache = CACHES.get(aggregateClass);
+    if (cache != null) {
+      cache.cache().invalidate(k);
+      if (cache.offHeap() != null) {
+        cache.offHeap().remove(k);
+      }
+    }
+  }
+
+  /**
+   * @return the number of states dropped from heap and off-heap.
+   */
+  public static int invalidateIf(Class<?> aggregateClass, Predicate<AggregatePlainKey> predicate) {
+    final var cache = CACHES.get(aggregateClass);
+    if (cache == null) {
+      return 0;
+    }
+    final var keys = cache.cache().asMap().keySet();
+    final var before = keys.size();
+    keys.removeIf(predicate);
+    final var removed = before - keys.size();
+    return cache.offHeap() == null ? removed : removed + cache.offHeap().removeIf(predicate);
+  }
+
+  /**
+   * @return the cache of the aggregate class, or null if caching is disabled for it.
+   */
+  public static Cache<AggregatePlainKey, Object> cache(Class<?> aggregateClass, AggregateConfiguration configuration) {
+    final var cache = policyCache(aggregateClass, configuration);
+    return cache == null ? null : cache.cache();
+  }
+
+  private static PolicyCache policyCache(Class<?> aggregateClass, AggregateConfiguration configuration) {
+    if (Boolean.FALSE.equals(configuration.useCache())) {
+      return null;
+    }
+    final var policy = CachePolicy.of(configuration);
+    final var cache = CACHES.get(aggregateClass);
+    if (cache != null && cache.policy().equals(policy)) {
+      return cache;
+    }
+    return CACHES.compute(aggregateClass, (aClass, current) -> current != null && current.policy().equals(policy)
+      ? current
+      : build((Class<? extends Aggregate>) aClass, policy)
+    );
+  }
+
+  private static PolicyCache build(Class<? extends Aggregate> aggregateClass, CachePolicy policy) {
+    logger.info("Building " + aggregateClass.getSimpleName() + " cache " + policy);
+    final OffHeapStateTier<? extends Aggregate> offHeap = policy.offHeapSizeInMb() > 0
+      ? new OffHeapStateTier<>(aggregateClass, policy.offHeapSizeInMb() * 1024 * 1024)
+      : null;
+    final var builder = Caffeine.newBuilder()
+      .expireAfterAccess(Duration.ofMinutes(policy.ttlInMinutes()))
+      .maximumWeight(policy.maxSizeInMb() * 1024 * 1024)
+      .weigher(new AggregateWeigher())
+      .evictionListener((AggregatePlainKey key, Object value, RemovalCause reason) -> {
+          if (logger.isDebugEnabled()) {
+            logger.debug(aggregateClass.getSimpleName() + " evicted from cache reason[" + reason + "] " + key);
+          }
+          if (offHeap != null) {
+            // collected soft values can't be handed over, the off-heap copy would be stale
+            if (value instanceof AggregateState<?> state) {
+              offHeap.put(key, (AggregateState) state);
+            } else {
+              offHeap.remove(key);
+            }
+          }
+        }
+      );
+    if (policy.softValues()) {
+      builder.softValues();
+    }
+    if (policy.stats()) {
+      builder.recordStats(() -> new CaffeineStatsCounter(
+          AggregateMetrics.registry(),
+          "eventx.aggregate",
+          Tags.of("aggregate", aggregateClass.getSimpleName())
+        )
+      );
+    }
+    return new PolicyCache(policy, builder.build(), offHeap);
+  }
+
+  private record PolicyCache(CachePolicy policy, Cache<AggregatePlainKey, Object> cache, OffHeapStateTier<? extends Aggregate> offHeap) {
+  }
+
+  private record CachePolicy(long ttlInMinutes, long maxSizeInMb, long offHeapSizeInMb, boolean softValues, boolean stats) {
+    static CachePolicy of(AggregateConfiguration configuration) {
+      return new CachePolicy(
+        Objects.requireNonNullElse(configuration.aggregateCacheTtlInMinutes(), 20L),
+        Objects.requireNonNullElse(configuration.aggregateCacheMaxSizeInMb(), 256L),
+        Objects.requireNonNullElse(configuration.aggregateCacheOffHeapSizeInMb(), 0L),
+        Boolean.TRUE.equals(configuration.aggregateCacheSoftValues()),
+        Boolean.TRUE.equals(configuration.aggregateCacheStats())
+      );
+    }
+  }
+
 }
@@ -0,0 +1,228 @@
+package io.vertx.eventx;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.eventx.infrastructure.bus.BinaryCodec;
+import io.vertx.eventx.infrastructure.misc.AggregateMetrics;
+import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+import io.vertx.eventx.objects.AggregateState;
+import io.vertx.eventx.objects.CommandWindow;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Second cache tier holding smile encoded states outside the heap, fed by the states evicted from caffeine.
+ * <p>
+ * The arena is a single direct buffer split in segments that are written like a log. When the writer needs
+ * a segment back its entries are dropped, except the ones read since they were written which get a second chance
+ * and are copied back at the start of the segment (clock eviction at segment granularity).
+ * A copy read back into caffeine stays in the tier, it is overwritten when caffeine evicts the state again
+ * and must be removed whenever caffeine drops the state without handing it over.
+ */
+public class OffHeapStateTier<T extends Aggregate> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapStateTier.class);
+  private static final int SEGMENTS = 16;
+  private static final ObjectWriter ENVELOPE_WRITER = BinaryCodec.SMILE_MAPPER.writerFor(Envelope.class);
+  private static final ObjectReader ENVELOPE_READER = BinaryCodec.SMILE_MAPPER.readerFor(Envelope.class);
+
+  private final Class<T> aggregateClass;
+  private final ByteBuffer arena;
+  private final int segmentSize;
+  private final Map<AggregatePlainKey, Entry> index = new HashMap<>();
+  private final List<List<Entry>> segments = new ArrayList<>(SEGMENTS);
+  private final ObjectWriter stateWriter;
+  private final ObjectReader stateReader;
+  private final Counter hits;
+  private final Counter misses;
+  private int current = 0;
+  private int position = 0;
+  private long usedBytes = 0;
+
+  public OffHeapStateTier(Class<T> aggregateClass, long sizeInBytes) {
+    this.aggregateClass = aggregateClass;
+    this.segmentSize = (int) Math.min(Integer.MAX_VALUE / SEGMENTS, sizeInBytes / SEGMENTS);
+    this.arena = ByteBuffer.allocateDirect(segmentSize * SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments.add(new ArrayList<>());
+    }
+    this.stateWriter = BinaryCodec.SMILE_MAPPER.writerFor(aggregateClass);
+    this.stateReader = BinaryCodec.SMILE_MAPPER.readerFor(aggregateClass);
+    final var registry = AggregateMetrics.registry();
+    this.hits = Counter.builder("eventx.aggregate.offheap").tag("aggregate", aggregateClass.getSimpleName()).tag("result", "hit").register(registry);
+    this.misses = Counter.builder("eventx.aggregate.offheap").tag("aggregate", aggregateClass.getSimpleName()).tag("result", "miss").register(registry);
+    Gauge.builder("eventx.aggregate.offheap.bytes", this, OffHeapStateTier::usedBytes)
+      .tag("aggregate", aggregateClass.getSimpleName())
+      .register(registry);
+  }
+
+  /**
+   * Serializes the state into the tier replacing any previous copy, states larger than a segment are dropped.
+   */
+  public void put(AggregatePlainKey key, AggregateState<T> state) {
+    final byte[] bytes;
+    try {
+      bytes = encode(state);
+    } catch (IOException e) {
+      LOGGER.warn("Unable to move " + key + " off-heap", e);
+      remove(key);
+      return;
+    }
+    synchronized (this) {
+      remove(key);
+      if (bytes.length > segmentSize) {
+        return;
+      }
+      while (position + bytes.length > segmentSize) {
+        reclaimNextSegment();
+      }
+      write(key, bytes);
+    }
+  }
+
+  /**
+   * @return the deserialized state or null if it isn't in the tier.
+   */
+  public AggregateState<T> get(AggregatePlainKey key) {
+    final byte[] bytes;
+    synchronized (this) {
+      final var entry = index.get(key);
+      if (entry == null) {
+        misses.increment();
+        return null;
+      }
+      entry.referenced = true;
+      bytes = new byte[entry.length];
+      arena.get(entry.offset, bytes);
+    }
+    hits.increment();
+    try {
+      return decode(bytes);
+    } catch (IOException e) {
+      LOGGER.warn("Unable to read " + key + " from off-heap", e);
+      return null;
+    }
+  }
+
+  public synchronized void remove(AggregatePlainKey key) {
+    final var entry = index.remove(key);
+    if (entry != null) {
+      usedBytes -= entry.length;
+    }
+  }
+
+  /**
+   * @return the number of states removed.
+   */
+  public synchronized int removeIf(Predicate<AggregatePlainKey> predicate) {
+    final var iterator = index.values().iterator();
+    int removed = 0;
+    while (iterator.hasNext()) {
+      final var entry = iterator.next();
+      if (predicate.test(entry.key)) {
+        iterator.remove();
+        usedBytes -= entry.length;
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  public synchronized long usedBytes() {
+    return usedBytes;
+  }
+
+  public synchronized int size() {
+    return index.size();
+  }
+
+  private void write(AggregatePlainKey key, byte[] bytes) {
+    final var entry = new Entry(key, current * segmentSize + position, bytes.length);
+    arena.put(entry.offset, bytes);
+    position += bytes.length;
+    usedBytes += bytes.length;
+    index.put(key, entry);
+    segments.get(current).add(entry);
+  }
+
+  private void reclaimNextSegment() {
+    current = (current + 1) % SEGMENTS;
+    position = 0;
+    final var entries = segments.get(current);
+    final var survivors = new ArrayList<Map.Entry<AggregatePlainKey, byte[]>>();
+    for (final var entry : entries) {
+      if (index.get(entry.key) != entry) {
+        continue;
+      }
+      index.remove(entry.key);
+      usedBytes -= entry.length;
+      if (entry.referenced) {
+        final var bytes = new byte[entry.length];
+        arena.get(entry.offset, bytes);
+        survivors.add(Map.entry(entry.key, bytes));
+      }
+    }
+    entries.clear();
+    survivors.forEach(survivor -> write(survivor.getKey(), survivor.getValue()));
+  }
+
+  private byte[] encode(AggregateState<T> state) throws IOException {
+    final var stateBytes = stateWriter.writeValueAsBytes(state.state());
+    state.setEncodedSize(stateBytes.length);
+    return ENVELOPE_WRITER.writeValueAsBytes(new Envelope(
+        stateBytes,
+        state.currentVersion(),
+        state.snapshotOffset(),
+        state.journalOffset(),
+        state.knownCommands().capacity(),
+        state.knownCommands().evicted(),
+        state.knownCommands().toList()
+      )
+    );
+  }
+
+  private AggregateState<T> decode(byte[] bytes) throws IOException {
+    final Envelope envelope = ENVELOPE_READER.readValue(bytes);
+    return new AggregateState<>(aggregateClass)
+      .setState(stateReader.readValue(envelope.state()))
+      .setCurrentVersion(envelope.currentVersion())
+      .setSnapshotOffset(envelope.snapshotOffset())
+      .setJournalOffset(envelope.journalOffset())
+      .setKnownCommands(CommandWindow.restore(envelope.window(), envelope.knownCommands(), envelope.evicted()))
+      .setEncodedSize(envelope.state().length);
+  }
+
+  private static class Entry {
+    private final AggregatePlainKey key;
+    private final int offset;
+    private final int length;
+    private boolean referenced = false;
+
+    private Entry(AggregatePlainKey key, int offset, int length) {
+      this.key = key;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  public record Envelope(
+    byte[] state,
+    Long currentVersion,
+    Long snapshotOffset,
+    Long journalOffset,
+    int window,
+    boolean evicted,
+    List<String> knownCommands
+  ) {
+  }
+
+}
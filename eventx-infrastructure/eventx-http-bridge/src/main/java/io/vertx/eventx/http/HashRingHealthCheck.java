@@ -4,7 +4,7 @@ import io.smallrye.mutiny.Uni;
 import io.vertx.eventx.Aggregate;
 import io.vertx.ext.healthchecks.Status;
 
-import static io.vertx.eventx.infrastructure.bus.AggregateBus.HASH_RING_MAP;
+import static io.vertx.eventx.infrastructure.bus.AggregateBus.routingTable;
 
 public class HashRingHealthCheck implements HealthCheck{
 
@@ -22,7 +22,7 @@ public class HashRingHealthCheck implements HealthCheck{
   // implement health check on aggregate bus
   @Override
   public Uni<Status> checkHealth() {
-    if (HASH_RING_MAP.isEmpty()) {
+    if (routingTable(aggregateClass).isEmpty()) {
       return Uni.createFrom().item(Status.KO());
     }
     return Uni.createFrom().item(Status.OK());
@@ -1,9 +1,13 @@
 package io.vertx.eventx.infra.pg;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.eventx.Aggregate;
 import io.vertx.eventx.infrastructure.EventStore;
 import io.vertx.eventx.infrastructure.models.AggregateEventStream;
+import io.vertx.eventx.infrastructure.models.AggregateKey;
 import io.vertx.eventx.infrastructure.models.AppendInstruction;
 import io.vertx.eventx.infrastructure.models.Event;
 import io.vertx.eventx.infrastructure.models.EventStream;
@@ -11,110 +15,149 @@ import io.vertx.eventx.infra.pg.mappers.EventJournalMapper;
 import io.vertx.eventx.infra.pg.models.EventRecord;
 import io.vertx.eventx.infra.pg.models.EventRecordKey;
 import io.vertx.eventx.infra.pg.models.EventRecordQuery;
+import io.vertx.eventx.objects.SnapshotEvent;
 import io.vertx.eventx.sql.LiquibaseHandler;
 import io.vertx.eventx.sql.Repository;
-import io.vertx.eventx.sql.models.BaseRecord;
-import io.vertx.eventx.sql.models.QueryOptions;
+import io.vertx.eventx.sql.RepositoryHandler;
+import io.vertx.eventx.sql.exceptions.NotFound;
+import io.vertx.mutiny.pgclient.pubsub.PgSubscriber;
+import io.vertx.mutiny.sqlclient.templates.RowMapper;
+import io.vertx.mutiny.sqlclient.templates.SqlTemplate;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 public class PgEventStore implements EventStore {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(PgEventStore.class);
+  private static final String JOURNAL_CHANNEL = "event_journal_ch";
+  private static final int CURSOR_FETCH_SIZE = 1000;
   private final Repository<EventRecordKey, EventRecord, EventRecordQuery> eventJournal;
+  private final PgJournalAppender journalAppender;
+  private final List<Consumer<Long>> subscribers = new CopyOnWriteArrayList<>();
+  private volatile PgSubscriber pgSubscriber;
 
   public PgEventStore(Repository<EventRecordKey, EventRecord, EventRecordQuery> eventJournal) {
     this.eventJournal = eventJournal;
+    this.journalAppender = new PgJournalAppender(eventJournal.repositoryHandler());
   }
 
   @Override
   public <T extends Aggregate> Uni<List<Event>> fetch(AggregateEventStream<T> aggregateEventStream) {
-    return eventJournal.query(eventJournalQuery(aggregateEventStream))
-      .map(eventRecords -> eventRecords.stream()
-        .map(eventRecord -> new Event(
-            eventRecord.aggregateClass(),
-            eventRecord.aggregateId(),
-            eventRecord.eventClass(),
-            eventRecord.eventVersion(),
-            eventRecord.event(),
-            eventRecord.baseRecord().tenantId(),
-            eventRecord.commandId(),
-            eventRecord.tags(),
-            eventRecord.schemaVersion()
-          )
-        ).toList()
-      );
+    return eventJournal.query(AGGREGATE_STREAM_STATEMENT, aggregateStreamParams(aggregateEventStream))
+      .map(eventRecords -> eventRecords.stream().map(PgEventStore::infraEvent).toList());
   }
 
-
-
   @Override
   public <T extends Aggregate> Uni<Void> stream(AggregateEventStream<T> aggregateEventStream, Consumer<Event> consumer) {
     return eventJournal.stream(
-      eventRecord -> {
-        final var infraEvent = new Event(
-          eventRecord.aggregateClass(),
-          eventRecord.aggregateId(),
-          eventRecord.eventClass(),
-          eventRecord.eventVersion(),
-          eventRecord.event(),
-          eventRecord.baseRecord().tenantId(),
-          eventRecord.commandId(),
-          eventRecord.tags(),
-          eventRecord.schemaVersion()
-        );
-        consumer.accept(infraEvent);
-      },
-      eventJournalQuery(aggregateEventStream)
+      eventRecord -> consumer.accept(infraEvent(eventRecord)),
+      AGGREGATE_STREAM_STATEMENT,
+      aggregateStreamParams(aggregateEventStream)
     );
   }
 
   @Override
   public Uni<Void> stream(EventStream eventStream, Consumer<Event> consumer) {
+    final var params = new HashMap<String, Object>();
     return eventJournal.stream(
-      eventRecord -> {
-        final var infraEvent = new Event(
-          eventRecord.aggregateClass(),
-          eventRecord.aggregateId(),
-          eventRecord.eventClass(),
-          eventRecord.eventVersion(),
-          eventRecord.event(),
-          eventRecord.baseRecord().tenantId(),
-          eventRecord.commandId(),
-          eventRecord.tags(),
-          eventRecord.schemaVersion()
-        );
-        consumer.accept(infraEvent);
-      },
-      eventJournalQuery(eventStream)
+      eventRecord -> consumer.accept(infraEvent(eventRecord)),
+      eventStreamStatement(eventStream, params, null),
+      params
     );
   }
 
+  @Override
+  public Multi<Event> stream(EventStream eventStream) {
+    final var params = new HashMap<String, Object>();
+    return eventJournal.stream(
+        eventStreamStatement(eventStream, params, null),
+        params,
+        Objects.requireNonNullElse(eventStream.batchSize(), CURSOR_FETCH_SIZE)
+      )
+      .map(PgEventStore::infraEvent);
+  }
+
   public Uni<List<Event>> fetch(EventStream eventStream) {
-    return eventJournal.query(eventJournalQuery(eventStream))
-      .map(eventRecords -> eventRecords.stream()
-        .map(eventRecord -> new Event(
-            eventRecord.aggregateClass(),
-            eventRecord.aggregateId(),
-            eventRecord.eventClass(),
-            eventRecord.eventVersion(),
-            eventRecord.event(),
-            eventRecord.baseRecord().tenantId(),
-            eventRecord.commandId(),
-            eventRecord.tags(),
-            eventRecord.schemaVersion()
-          )
-        ).toList()
-      );
+    final var params = new HashMap<String, Object>();
+    return eventJournal.query(eventStreamStatement(eventStream, params, eventStream.batchSize()), params)
+      .map(eventRecords -> eventRecords.stream().map(PgEventStore::infraEvent).toList());
   }
 
   @Override
-  public <T extends Aggregate> Uni<Void> append(AppendInstruction<T> appendInstruction) {
-    return eventJournal.insertBatch(parseInstruction(appendInstruction));
+  public <T extends Aggregate> Uni<List<Event>> append(AppendInstruction<T> appendInstruction) {
+    return journalAppender.append(appendInstruction);
+  }
+
+  @Override
+  public <T extends Aggregate> Uni<Set<String>> knownCommands(AggregateKey<T> aggregateKey, Collection<String> commandIds) {
+    final var params = new HashMap<String, Object>();
+    params.put(EventJournalMapper.COMMAND_ID, commandIds.toArray(String[]::new));
+    params.put(EventJournalMapper.TENANT, aggregateKey.tenantId());
+    params.put(EventJournalMapper.AGGREGATE_CLASS, aggregateKey.aggregateClass().getName());
+    params.put(EventJournalMapper.AGGREGATE_ID, aggregateKey.aggregateId());
+    return eventJournal.repositoryHandler().handleQuery(String.class).apply(
+        () -> SqlTemplate.forQuery(eventJournal.repositoryHandler().sqlClient(), KNOWN_COMMANDS_STATEMENT)
+          .mapTo(COMMAND_ID_MAPPER)
+          .execute(params)
+      )
+      .map(Set::copyOf)
+      .onFailure(NotFound.class).recoverWithItem(Set.of());
+  }
+
+  /**
+   * Every subscriber shares one listening connection, it reconnects on its own and subscribers are told
+   * to catch up once it's back since the notifications sent meanwhile are lost.
+   */
+  @Override
+  public synchronized Uni<Void> subscribe(Consumer<Long> journalOffsetHandler) {
+    subscribers.add(journalOffsetHandler);
+    if (pgSubscriber != null) {
+      journalOffsetHandler.accept(null);
+      return Uni.createFrom().voidItem();
+    }
+    this.pgSubscriber = PgSubscriber.subscriber(
+      eventJournal.repositoryHandler().vertx(),
+      RepositoryHandler.connectionOptions(eventJournal.repositoryHandler().configuration())
+    );
+    pgSubscriber.reconnectPolicy(retries -> Math.min(500L * (retries + 1), 10_000L));
+    pgSubscriber.channel(JOURNAL_CHANNEL)
+      .handler(payload -> {
+          // an insert that skipped every row on conflict has nothing to point at, subscribers just catch up
+          final var journalOffset = payload == null || payload.isBlank() ? null : Long.parseLong(payload);
+          subscribers.forEach(subscriber -> subscriber.accept(journalOffset));
+        }
+      )
+      .subscribeHandler(() -> {
+          LOGGER.info("Subscribed to " + JOURNAL_CHANNEL);
+          subscribers.forEach(subscriber -> subscriber.accept(null));
+        }
+      )
+      .endHandler(() -> LOGGER.warn("Subscription to " + JOURNAL_CHANNEL + " ended"))
+      .exceptionHandler(throwable -> LOGGER.error("Error in " + JOURNAL_CHANNEL + " subscription", throwable));
+    return pgSubscriber.connect();
+  }
+
+  @Override
+  public boolean subscribed() {
+    final var subscriber = pgSubscriber;
+    return subscriber != null && !subscriber.closed() && subscriber.getDelegate().actualConnection() != null;
   }
 
   @Override
   public Uni<Void> close() {
+    journalAppender.flush();
+    if (pgSubscriber != null) {
+      return pgSubscriber.close()
+        .flatMap(avoid -> eventJournal.repositoryHandler().close());
+    }
     return eventJournal.repositoryHandler().close();
   }
 
@@ -127,74 +170,98 @@ public class PgEventStore implements EventStore {
     );
   }
 
-  private <T extends Aggregate> List<EventRecord> parseInstruction(AppendInstruction<T> appendInstruction) {
-    return appendInstruction.events().stream()
-      .map(event -> new EventRecord(
-          appendInstruction.aggregate().getName(),
-          event.aggregateId(),
-          event.eventClass(),
-          event.eventVersion(),
-          event.event(),
-          event.commandId(),
-          event.tags(),
-          event.schemaVersion(),
-          BaseRecord.newRecord(event.tenantId())
-        )
-      ).toList();
+  /**
+   * Streams the latest snapshot of the aggregate, if any, followed by the events appended after it.
+   * Both the snapshot lookup and the events are fetched in the same statement.
+   */
+  private static final String AGGREGATE_STREAM_STATEMENT = "select * from " + EventJournalMapper.TABLE +
+    " where " + EventJournalMapper.AGGREGATE_CLASS + " = #{" + EventJournalMapper.AGGREGATE_CLASS + "}" +
+    " and " + EventJournalMapper.AGGREGATE_ID + " = #{" + EventJournalMapper.AGGREGATE_ID + "}" +
+    " and " + EventJournalMapper.TENANT + " = #{" + EventJournalMapper.TENANT + "}" +
+    " and " + EventJournalMapper.EVENT_VERSION + " >= coalesce((" +
+    "select max(" + EventJournalMapper.EVENT_VERSION + ") from " + EventJournalMapper.TABLE +
+    " where " + EventJournalMapper.AGGREGATE_CLASS + " = #{" + EventJournalMapper.AGGREGATE_CLASS + "}" +
+    " and " + EventJournalMapper.AGGREGATE_ID + " = #{" + EventJournalMapper.AGGREGATE_ID + "}" +
+    " and " + EventJournalMapper.TENANT + " = #{" + EventJournalMapper.TENANT + "}" +
+    " and " + EventJournalMapper.EVENT_CLASS + " = '" + SnapshotEvent.class.getName() + "'" +
+    " and " + EventJournalMapper.EVENT_VERSION + " > #{" + EventJournalMapper.EVENT_VERSION + "}" +
+    "), #{" + EventJournalMapper.EVENT_VERSION + "} + 1)" +
+    " order by " + EventJournalMapper.EVENT_VERSION + ";";
+
+  /**
+   * One row per command id that produced events on the aggregate, resolved through the (command_id, tenant) index.
+   */
+  private static final String KNOWN_COMMANDS_STATEMENT = "select distinct " + EventJournalMapper.COMMAND_ID + " from " + EventJournalMapper.TABLE +
+    " where " + EventJournalMapper.COMMAND_ID + " = any(#{" + EventJournalMapper.COMMAND_ID + "})" +
+    " and " + EventJournalMapper.TENANT + " = #{" + EventJournalMapper.TENANT + "}" +
+    " and " + EventJournalMapper.AGGREGATE_CLASS + " = #{" + EventJournalMapper.AGGREGATE_CLASS + "}" +
+    " and " + EventJournalMapper.AGGREGATE_ID + " = #{" + EventJournalMapper.AGGREGATE_ID + "};";
+
+  private static final RowMapper<String> COMMAND_ID_MAPPER = RowMapper.newInstance(row -> row.getString(EventJournalMapper.COMMAND_ID));
+
+  private static <T extends Aggregate> Map<String, Object> aggregateStreamParams(AggregateEventStream<T> aggregateEventStream) {
+    final var params = new HashMap<String, Object>();
+    params.put(EventJournalMapper.AGGREGATE_CLASS, aggregateEventStream.aggregate().getName());
+    params.put(EventJournalMapper.AGGREGATE_ID, aggregateEventStream.aggregateId());
+    params.put(EventJournalMapper.TENANT, aggregateEventStream.tenantId());
+    params.put(EventJournalMapper.EVENT_VERSION, Objects.requireNonNullElse(aggregateEventStream.eventVersionOffset(), 0L));
+    return params;
   }
 
-  private <T extends Aggregate> EventRecordQuery eventJournalQuery(AggregateEventStream<T> aggregateEventStream) {
-    // todo make it so that stream starts from the last snapshot in the journal.
-    // select * from event_store where id >= (select max(id) from event_store where event_class = 'snapshot.class')
-    return new EventRecordQuery(
-      List.of(aggregateEventStream.aggregateId()),
-      null,
-      List.of(aggregateEventStream.aggregate().getName()),
-      null,
-      aggregateEventStream.eventVersionOffset(),
-      null,
-      null,
-      null,
-      null,
-      new QueryOptions(
-        EventJournalMapper.EVENT_VERSION,
-        false,
-        null,
-        null,
-        null,
-        null,
-        null,
-        null,
-        aggregateEventStream.journalOffset(),
-        aggregateEventStream.tenantId()
-      )
+  private static Event infraEvent(EventRecord eventRecord) {
+    return new Event(
+      eventRecord.id(),
+      eventRecord.aggregateClass(),
+      eventRecord.aggregateId(),
+      eventRecord.eventClass(),
+      eventRecord.eventVersion(),
+      eventRecord.event(),
+      eventRecord.baseRecord().tenantId(),
+      eventRecord.commandId(),
+      eventRecord.tags(),
+      eventRecord.schemaVersion()
     );
   }
 
-  private EventRecordQuery eventJournalQuery(EventStream eventStream) {
-    return new EventRecordQuery(
-      eventStream.aggregateIds(),
-      eventStream.events().stream().map(Class::getName).toList(),
-      eventStream.aggregates().stream().map(Class::getName).toList(),
-      eventStream.tags(),
-      null,
-      null,
-      eventStream.offset(),
-      null,
-      null,
-      new QueryOptions(
-        EventJournalMapper.ID,
-        false,
-        null,
-        null,
-        null,
-        null,
-        null,
-        null,
-        null,
-        eventStream.tenantId()
-      )
-    );
+  /**
+   * Keyset page of the journal after the stream offset, in journal order, only the filters that are set make it into the statement.
+   */
+  private static String eventStreamStatement(EventStream eventStream, Map<String, Object> params, Integer limit) {
+    final var filters = new StringJoiner(" and ");
+    filters.add(EventJournalMapper.ID + " > #{" + EventJournalMapper.ID + "}");
+    params.put(EventJournalMapper.ID, Objects.requireNonNullElse(eventStream.offset(), 0L));
+    if (eventStream.aggregates() != null && !eventStream.aggregates().isEmpty()) {
+      filters.add(EventJournalMapper.AGGREGATE_CLASS + " = any(#{" + EventJournalMapper.AGGREGATE_CLASS + "})");
+      params.put(EventJournalMapper.AGGREGATE_CLASS, eventStream.aggregates().stream().map(Class::getName).toArray(String[]::new));
+    }
+    if (eventStream.events() != null && !eventStream.events().isEmpty()) {
+      filters.add(EventJournalMapper.EVENT_CLASS + " = any(#{" + EventJournalMapper.EVENT_CLASS + "})");
+      params.put(EventJournalMapper.EVENT_CLASS, eventStream.events().stream().map(Class::getName).toArray(String[]::new));
+    }
+    if (eventStream.aggregateIds() != null && !eventStream.aggregateIds().isEmpty()) {
+      filters.add(EventJournalMapper.AGGREGATE_ID + " = any(#{" + EventJournalMapper.AGGREGATE_ID + "})");
+      params.put(EventJournalMapper.AGGREGATE_ID, eventStream.aggregateIds().toArray(String[]::new));
+    }
+    if (eventStream.tags() != null && !eventStream.tags().isEmpty()) {
+      filters.add(EventJournalMapper.TAGS + " && #{" + EventJournalMapper.TAGS + "}::varchar(20)[]");
+      params.put(EventJournalMapper.TAGS, eventStream.tags().toArray(String[]::new));
+    }
+    if (eventStream.tenantId() != null) {
+      filters.add(EventJournalMapper.TENANT + " = #{" + EventJournalMapper.TENANT + "}");
+      params.put(EventJournalMapper.TENANT, eventStream.tenantId());
+    }
+    if (eventStream.partitions() != null && eventStream.partitions() > 1) {
+      // masking the sign bit instead of abs() which overflows on the smallest int
+      filters.add("(hashtext(" + EventJournalMapper.AGGREGATE_ID + ") & 2147483647) % #{partitions} = #{partition}");
+      params.put("partitions", eventStream.partitions());
+      params.put("partition", eventStream.partition());
+    }
+    final var statement = "select * from " + EventJournalMapper.TABLE + " where " + filters + " order by " + EventJournalMapper.ID;
+    if (limit != null) {
+      params.put("batchSize", limit);
+      return statement + " fetch first #{batchSize} rows only;";
+    }
+    return statement + ";";
   }
 
 
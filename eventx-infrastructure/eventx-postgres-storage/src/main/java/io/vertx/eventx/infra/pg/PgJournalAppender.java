@@ -0,0 +1,238 @@
+package io.vertx.eventx.infra.pg;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.eventx.Aggregate;
+import io.vertx.eventx.infra.pg.mappers.EventJournalMapper;
+import io.vertx.eventx.infrastructure.models.AppendInstruction;
+import io.vertx.eventx.infrastructure.models.Event;
+import io.vertx.eventx.sql.RepositoryHandler;
+import io.vertx.eventx.sql.exceptions.Conflict;
+import io.vertx.eventx.sql.misc.SqlError;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static io.vertx.eventx.infra.pg.mappers.EventJournalMapper.*;
+
+/**
+ * Writes append instructions to the journal with a single multi-row insert, the ids assigned by the journal
+ * are handed back with the appended events.
+ * <p>
+ * In group-commit mode instructions are gathered for a short window, or until enough events are pending,
+ * and committed together. Rows that hit the (aggregate_class, aggregate_id, event_version) constraint are skipped,
+ * the instructions owning them are rolled back within the same transaction and fail with a {@link Conflict}.
+ * <p>
+ * Confined to the context of the verticle using it.
+ */
+public class PgJournalAppender {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PgJournalAppender.class);
+  private static final List<String> COLUMNS = List.of(AGGREGATE_CLASS, AGGREGATE_ID, EVENT_CLASS, EVENT_VERSION, EVENT, COMMAND_ID, TAGS, SCHEMA_VERSION, TENANT);
+  // postgres caps bind parameters at 65535 per statement
+  private static final int MAX_EVENTS_PER_STATEMENT = 65535 / COLUMNS.size();
+
+  private final RepositoryHandler repositoryHandler;
+  private final boolean groupCommit;
+  private final long windowInMs;
+  private final int maxEvents;
+  private List<PendingAppend> pending = new ArrayList<>();
+  private int pendingEvents = 0;
+  private Long timerId = null;
+
+  public PgJournalAppender(RepositoryHandler repositoryHandler) {
+    this.repositoryHandler = repositoryHandler;
+    this.groupCommit = repositoryHandler.configuration().getBoolean("eventStoreGroupCommit", false);
+    this.windowInMs = repositoryHandler.configuration().getLong("eventStoreGroupCommitWindowInMs", 2L);
+    this.maxEvents = Math.min(repositoryHandler.configuration().getInteger("eventStoreGroupCommitMaxEvents", 500), MAX_EVENTS_PER_STATEMENT);
+  }
+
+  public <T extends Aggregate> Uni<List<Event>> append(AppendInstruction<T> appendInstruction) {
+    if (!groupCommit) {
+      return Uni.createFrom().emitter(emitter -> write(List.of(new PendingAppend(appendInstruction, emitter))));
+    }
+    return Uni.createFrom().emitter(emitter -> {
+        pending.add(new PendingAppend(appendInstruction, emitter));
+        pendingEvents += appendInstruction.events().size();
+        if (pendingEvents >= maxEvents) {
+          flush();
+        } else if (timerId == null) {
+          timerId = repositoryHandler.vertx().setTimer(windowInMs, id -> {
+              timerId = null;
+              flush();
+            }
+          );
+        }
+      }
+    );
+  }
+
+  public void flush() {
+    if (timerId != null) {
+      repositoryHandler.vertx().cancelTimer(timerId);
+      timerId = null;
+    }
+    if (pending.isEmpty()) {
+      return;
+    }
+    final var batch = pending;
+    pending = new ArrayList<>();
+    pendingEvents = 0;
+    write(batch);
+  }
+
+  private void write(List<PendingAppend> batch) {
+    final var events = batch.stream().flatMap(pendingAppend -> pendingAppend.instruction().events().stream()).toList();
+    if (events.size() > MAX_EVENTS_PER_STATEMENT) {
+      final var half = batch.size() / 2;
+      if (half > 0) {
+        write(batch.subList(0, half));
+        write(batch.subList(half, batch.size()));
+        return;
+      }
+    }
+    LOGGER.debug("Appending " + events.size() + " events from " + batch.size() + " instructions");
+    repositoryHandler.pgPool().withTransaction(connection -> insert(connection, batch, events))
+      .subscribe().with(
+        result -> {
+          for (final var pendingAppend : batch) {
+            if (result.conflicts().contains(pendingAppend)) {
+              pendingAppend.emitter().fail(conflict(pendingAppend.instruction()));
+            } else {
+              pendingAppend.emitter().complete(appendedEvents(pendingAppend.instruction(), result.inserted()));
+            }
+          }
+        },
+        throwable -> batch.forEach(pendingAppend -> pendingAppend.emitter().fail(throwable))
+      );
+  }
+
+  private Uni<InsertResult> insert(SqlConnection connection, List<PendingAppend> batch, List<Event> events) {
+    return connection.preparedQuery(insertStatement(events.size()))
+      .execute(insertParams(batch, events))
+      .flatMap(rows -> {
+          final var inserted = insertedRows(rows);
+          final var conflicts = new HashSet<PendingAppend>();
+          final var rollback = new ArrayList<Long>();
+          for (final var pendingAppend : batch) {
+            final var instruction = pendingAppend.instruction();
+            final var ids = pendingAppend.instruction().events().stream()
+              .map(event -> inserted.get(new RowKey(instruction.aggregate().getName(), instruction.aggregateId(), event.eventVersion())))
+              .toList();
+            if (ids.contains(null)) {
+              conflicts.add(pendingAppend);
+              ids.stream().filter(Objects::nonNull).forEach(rollback::add);
+            }
+          }
+          if (rollback.isEmpty()) {
+            return Uni.createFrom().item(new InsertResult(inserted, conflicts));
+          }
+          return connection.preparedQuery("delete from " + TABLE + " where " + ID + " = any($1)")
+            .execute(Tuple.of(rollback.toArray(Long[]::new)))
+            .replaceWith(new InsertResult(inserted, conflicts));
+        }
+      );
+  }
+
+  private static List<Event> appendedEvents(AppendInstruction<?> instruction, Map<RowKey, Long> inserted) {
+    return instruction.events().stream()
+      .map(event -> new Event(
+          inserted.get(new RowKey(instruction.aggregate().getName(), instruction.aggregateId(), event.eventVersion())),
+          event.aggregateClass(),
+          event.aggregateId(),
+          event.eventClass(),
+          event.eventVersion(),
+          event.event(),
+          event.tenantId(),
+          event.commandId(),
+          event.tags(),
+          event.schemaVersion()
+        )
+      )
+      .toList();
+  }
+
+  private static Map<RowKey, Long> insertedRows(RowSet<Row> rows) {
+    final var inserted = new HashMap<RowKey, Long>(rows.size());
+    for (final var row : rows) {
+      inserted.put(new RowKey(row.getString(AGGREGATE_CLASS), row.getString(AGGREGATE_ID), row.getLong(EVENT_VERSION)), row.getLong(ID));
+    }
+    return inserted;
+  }
+
+  private static Tuple insertParams(List<PendingAppend> batch, List<Event> events) {
+    final var params = Tuple.tuple();
+    for (final var pendingAppend : batch) {
+      final var instruction = pendingAppend.instruction();
+      for (final var event : instruction.events()) {
+        params.addString(instruction.aggregate().getName())
+          .addString(instruction.aggregateId())
+          .addString(event.eventClass())
+          .addLong(event.eventVersion())
+          .addValue(event.event())
+          .addString(event.commandId())
+          .addArrayOfString(event.tags() == null ? new String[0] : event.tags().toArray(String[]::new))
+          .addInteger(event.schemaVersion())
+          .addString(Objects.requireNonNullElse(event.tenantId(), instruction.tenantId()));
+      }
+    }
+    return params;
+  }
+
+  private static String insertStatement(int rows) {
+    final var statement = new StringBuilder("insert into ").append(TABLE).append(" (")
+      .append(String.join(", ", COLUMNS))
+      .append(") values ");
+    int param = 1;
+    for (int row = 0; row < rows; row++) {
+      statement.append(row == 0 ? "(" : ", (");
+      for (int column = 0; column < COLUMNS.size(); column++) {
+        statement.append(column == 0 ? "$" : ", $").append(param++);
+      }
+      statement.append(")");
+    }
+    return statement.append(" on conflict (").append(AGGREGATE_CLASS).append(", ").append(AGGREGATE_ID).append(", ").append(EVENT_VERSION).append(")")
+      .append(" do nothing returning ").append(ID).append(", ").append(AGGREGATE_CLASS).append(", ").append(AGGREGATE_ID).append(", ").append(EVENT_VERSION)
+      .toString();
+  }
+
+  private static Conflict conflict(AppendInstruction<?> instruction) {
+    return new Conflict(new SqlError(
+      "Event version already present in the journal",
+      "ERROR",
+      "23505",
+      instruction.aggregate().getSimpleName() + "::" + instruction.aggregateId() + "::" + instruction.tenantId()
+    )
+    );
+  }
+
+  private record RowKey(
+    String aggregateClass,
+    String aggregateId,
+    Long eventVersion
+  ) {
+  }
+
+  private record InsertResult(
+    Map<RowKey, Long> inserted,
+    Set<PendingAppend> conflicts
+  ) {
+  }
+
+  private record PendingAppend(
+    AppendInstruction<?> instruction,
+    UniEmitter<? super List<Event>> emitter
+  ) {
+  }
+
+}
@@ -1,35 +1,110 @@
 package io.vertx.eventx.infra.pg;
 
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.eventx.infrastructure.OffsetStore;
+import io.vertx.eventx.infra.pg.mappers.JournalOffsetMapper;
 import io.vertx.eventx.infra.pg.models.EventJournalOffSet;
 import io.vertx.eventx.infra.pg.models.EventJournalOffSetKey;
 import io.vertx.eventx.objects.JournalOffset;
 import io.vertx.eventx.objects.JournalOffsetKey;
 import io.vertx.eventx.sql.LiquibaseHandler;
 import io.vertx.eventx.sql.Repository;
+import io.vertx.eventx.sql.exceptions.NotFound;
+import io.vertx.eventx.sql.models.BaseRecord;
 import io.vertx.eventx.sql.models.EmptyQuery;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.vertx.eventx.infra.pg.mappers.JournalOffsetMapper.*;
+
+/**
+ * Offsets are upserted per consumer and tenant.
+ * <p>
+ * In write-behind mode puts only replace the pending offset of the consumer, the latest offsets are flushed
+ * in one batch every flush interval or once enough puts went through. Pending offsets are held by the node,
+ * consumers flush theirs before releasing the lock another node may take next. A crash loses the pending offsets,
+ * consumers then replay the events since the last flush so their handlers must be idempotent.
+ */
 public class PgOffsetStore implements OffsetStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PgOffsetStore.class);
+  private static final String UPSERT_STATEMENT = upsertStatement();
+  private static final String SELECT_STATEMENT = "select * from " + TABLE_NAME +
+    " where " + CONSUMER + " = #{" + CONSUMER + "} and " + TENANT + " = #{" + TENANT + "};";
+
   private final Repository<EventJournalOffSetKey, EventJournalOffSet, EmptyQuery> repository;
+  private final Map<EventJournalOffSetKey, JournalOffset> pending = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingPuts = new AtomicInteger(0);
+  private final AtomicBoolean timerArmed = new AtomicBoolean(false);
+  private final AtomicBoolean flushing = new AtomicBoolean(false);
+  private final boolean writeBehind;
+  private final long flushInterval;
+  private final int flushBatches;
+  private Long timerId;
+  private volatile Uni<Void> inFlight = Uni.createFrom().voidItem();
 
   public PgOffsetStore(Repository<EventJournalOffSetKey, EventJournalOffSet, EmptyQuery> repository) {
     this.repository = repository;
+    this.writeBehind = repository.repositoryHandler().configuration().getBoolean("offsetWriteBehind", false);
+    this.flushInterval = repository.repositoryHandler().configuration().getLong("offsetFlushIntervalInMs", 1000L);
+    this.flushBatches = repository.repositoryHandler().configuration().getInteger("offsetFlushBatches", 10);
   }
 
   @Override
   public Uni<JournalOffset> put(JournalOffset journalOffset) {
-    return null;
+    if (!writeBehind) {
+      return repository.update(UPSERT_STATEMENT, params(journalOffset))
+        .replaceWith(journalOffset);
+    }
+    pending.put(recordKey(journalOffset.consumer(), journalOffset.tenantId()), journalOffset);
+    armTimer();
+    if (pendingPuts.incrementAndGet() >= flushBatches) {
+      flushAndForget();
+    }
+    return Uni.createFrom().item(journalOffset);
   }
 
   @Override
   public Uni<JournalOffset> get(JournalOffsetKey journalOffset) {
-    return null;
+    final var key = recordKey(journalOffset.consumer(), journalOffset.tenantId());
+    final var pendingOffset = pending.get(key);
+    if (pendingOffset != null) {
+      return Uni.createFrom().item(pendingOffset);
+    }
+    final var params = new HashMap<String, Object>();
+    JournalOffsetMapper.INSTANCE.keyParams(params, key);
+    return repository.query(SELECT_STATEMENT, params)
+      .map(records -> records.get(0))
+      .map(record -> new JournalOffset(record.consumer(), record.baseRecord().tenantId(), record.idOffSet(), record.eventVersionOffset()))
+      .onFailure(NotFound.class).recoverWithItem(() -> new JournalOffset(journalOffset.consumer(), journalOffset.tenantId(), 0L, 0L));
+  }
+
+  @Override
+  public Uni<Void> flush(JournalOffsetKey journalOffset) {
+    final var key = recordKey(journalOffset.consumer(), journalOffset.tenantId());
+    final var pendingOffset = pending.get(key);
+    if (pendingOffset == null) {
+      return Uni.createFrom().voidItem();
+    }
+    return repository.update(UPSERT_STATEMENT, params(pendingOffset))
+      .invoke(avoid -> pending.remove(key, pendingOffset))
+      .replaceWithVoid();
   }
 
   @Override
   public Uni<Void> close() {
-    return repository.repositoryHandler().close();
+    if (timerId != null) {
+      repository.repositoryHandler().vertx().cancelTimer(timerId);
+    }
+    return flushAll()
+      .flatMap(avoid -> repository.repositoryHandler().close());
   }
 
   @Override
@@ -40,4 +115,79 @@ public class PgOffsetStore implements OffsetStore {
       repository.repositoryHandler().configuration()
     );
   }
+
+  private void armTimer() {
+    if (timerArmed.compareAndSet(false, true)) {
+      this.timerId = repository.repositoryHandler().vertx().setPeriodic(flushInterval, id -> flushAndForget());
+    }
+  }
+
+  private void flushAndForget() {
+    flush().subscribe().with(
+      avoid -> {
+      },
+      throwable -> LOGGER.error("Unable to flush offsets", throwable)
+    );
+  }
+
+  /**
+   * Waits for the flush in flight, then flushes until nothing is pending.
+   */
+  private Uni<Void> flushAll() {
+    return inFlight.onFailure().recoverWithNull()
+      .flatMap(avoid -> flush())
+      .flatMap(avoid -> pending.isEmpty() ? Uni.createFrom().voidItem() : flushAll());
+  }
+
+  private synchronized Uni<Void> flush() {
+    if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+      return Uni.createFrom().voidItem();
+    }
+    pendingPuts.set(0);
+    // offsets stay readable from the buffer until they are written, a newer put for the same consumer is kept for the next flush
+    final var flushed = new HashMap<>(pending);
+    final var params = new ArrayList<Map<String, Object>>(flushed.size());
+    flushed.values().forEach(journalOffset -> params.add(params(journalOffset)));
+    LOGGER.debug("Flushing " + params.size() + " offsets");
+    this.inFlight = repository.updateBatch(UPSERT_STATEMENT, params)
+      .invoke(avoid -> flushed.forEach(pending::remove))
+      .onTermination().invoke(() -> flushing.set(false))
+      .memoize().indefinitely();
+    return inFlight;
+  }
+
+  private static EventJournalOffSetKey recordKey(String consumer, String tenantId) {
+    return new EventJournalOffSetKey(consumer, tenantId);
+  }
+
+  private static Map<String, Object> params(JournalOffset journalOffset) {
+    final var params = new HashMap<String, Object>();
+    JournalOffsetMapper.INSTANCE.params(params, new EventJournalOffSet(
+        journalOffset.consumer(),
+        journalOffset.idOffSet(),
+        journalOffset.eventVersionOffset(),
+        BaseRecord.newRecord(journalOffset.tenantId())
+      )
+    );
+    return params;
+  }
+
+  private static String upsertStatement() {
+    final var columns = new StringJoiner(", ");
+    final var params = new StringJoiner(", ");
+    JournalOffsetMapper.INSTANCE.columns().forEach(column -> {
+        columns.add(column);
+        params.add("#{" + column + "}");
+      }
+    );
+    // offsets only move forward, a late flush can't rewind a consumer
+    return "insert into " + TABLE_NAME + " (" + columns + ") values (" + params + ")" +
+      " on conflict (" + CONSUMER + ", " + TENANT + ") do update set " +
+      ID_OFFSET + " = excluded." + ID_OFFSET + ", " +
+      EVENT_OFFSET + " = excluded." + EVENT_OFFSET + ", " +
+      LAST_UPDATE + " = current_timestamp, " +
+      VERSION + " = " + TABLE_NAME + "." + VERSION + " + 1" +
+      " where " + TABLE_NAME + "." + ID_OFFSET + " is null or " + TABLE_NAME + "." + ID_OFFSET + " <= excluded." + ID_OFFSET + ";";
+  }
+
 }
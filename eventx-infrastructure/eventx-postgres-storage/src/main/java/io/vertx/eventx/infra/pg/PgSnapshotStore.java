@@ -0,0 +1,195 @@
+package io.vertx.eventx.infra.pg;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.eventx.Aggregate;
+import io.vertx.eventx.infra.pg.mappers.AggregateSnapshotMapper;
+import io.vertx.eventx.infra.pg.models.AggregateRecordKey;
+import io.vertx.eventx.infra.pg.models.AggregateSnapshotRecord;
+import io.vertx.eventx.infrastructure.SnapshotStore;
+import io.vertx.eventx.infrastructure.misc.SnapshotSchemas;
+import io.vertx.eventx.infrastructure.misc.TypeRegistry;
+import io.vertx.eventx.infrastructure.models.AggregateKey;
+import io.vertx.eventx.objects.AggregateState;
+import io.vertx.eventx.sql.LiquibaseHandler;
+import io.vertx.eventx.sql.Repository;
+import io.vertx.eventx.sql.exceptions.NotFound;
+import io.vertx.eventx.sql.models.BaseRecord;
+import io.vertx.eventx.sql.models.EmptyQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.vertx.eventx.infra.pg.mappers.AggregateSnapshotMapper.*;
+
+/**
+ * Snapshots are buffered per aggregate, only the latest one is kept, and flushed in batches
+ * either when the buffer is full or when the flush interval elapses.
+ */
+public class PgSnapshotStore implements SnapshotStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PgSnapshotStore.class);
+  private static final String UPSERT_STATEMENT = upsertStatement();
+  private static final String SELECT_STATEMENT = "select * from " + TABLE +
+    " where " + AGGREGATE_CLASS + " = #{" + AGGREGATE_CLASS + "} and " + AGGREGATE_ID + " = #{" + AGGREGATE_ID + "}" +
+    " and " + TENANT + " = #{" + TENANT + "};";
+
+  private final Repository<AggregateRecordKey, AggregateSnapshotRecord, EmptyQuery> repository;
+  private final Map<AggregateRecordKey, AggregateState<?>> pending = new ConcurrentHashMap<>();
+  private final AtomicBoolean timerArmed = new AtomicBoolean(false);
+  private final AtomicBoolean flushing = new AtomicBoolean(false);
+  private final long flushInterval;
+  private final int batchSize;
+  private Long timerId;
+  private volatile Uni<Void> inFlight = Uni.createFrom().voidItem();
+
+  public PgSnapshotStore(Repository<AggregateRecordKey, AggregateSnapshotRecord, EmptyQuery> repository) {
+    this.repository = repository;
+    this.flushInterval = repository.repositoryHandler().configuration().getLong("snapshotFlushIntervalInMs", 500L);
+    this.batchSize = repository.repositoryHandler().configuration().getInteger("snapshotBatchSize", 100);
+  }
+
+  @Override
+  public <T extends Aggregate> Uni<AggregateState<T>> get(AggregateKey<T> key) {
+    final var pendingState = (AggregateState<T>) pending.get(recordKey(key.aggregateClass(), key.aggregateId(), key.tenantId()));
+    if (pendingState != null) {
+      // same shape as a stored snapshot, the copy keeps whether the window ever evicted an id
+      return Uni.createFrom().item(pendingState.copy().setSnapshotOffset(pendingState.journalOffset()));
+    }
+    final var params = new HashMap<String, Object>();
+    AggregateSnapshotMapper.INSTANCE.keyParams(params, recordKey(key.aggregateClass(), key.aggregateId(), key.tenantId()));
+    return repository.query(SELECT_STATEMENT, params)
+      .map(snapshotRecords -> aggregateState(key.aggregateClass(), snapshotRecords.get(0)))
+      .onFailure(NotFound.class).recoverWithNull();
+  }
+
+  @Override
+  public <T extends Aggregate> Uni<Void> add(AggregateState<T> value) {
+    pending.put(recordKey(value.aggregateClass(), value.state().aggregateId(), value.state().tenantID()), value);
+    armTimer();
+    if (pending.size() >= batchSize) {
+      flushAndForget();
+    }
+    return Uni.createFrom().voidItem();
+  }
+
+  @Override
+  public <T extends Aggregate> Uni<Void> update(AggregateState<T> aggregate) {
+    return add(aggregate);
+  }
+
+  @Override
+  public Uni<Void> close() {
+    if (timerId != null) {
+      repository.repositoryHandler().vertx().cancelTimer(timerId);
+    }
+    return flushAll();
+  }
+
+  @Override
+  public Uni<Void> start() {
+    return LiquibaseHandler.runLiquibaseChangeLog(
+      "pg-snapshot-store.xml",
+      repository.repositoryHandler().vertx(),
+      repository.repositoryHandler().configuration()
+    );
+  }
+
+  private void armTimer() {
+    if (timerArmed.compareAndSet(false, true)) {
+      this.timerId = repository.repositoryHandler().vertx().setPeriodic(flushInterval, id -> flushAndForget());
+    }
+  }
+
+  private void flushAndForget() {
+    flush().subscribe().with(
+      avoid -> {
+      },
+      throwable -> LOGGER.error("Unable to flush snapshots", throwable)
+    );
+  }
+
+  /**
+   * Waits for the flush in flight, then flushes until nothing is pending.
+   */
+  private Uni<Void> flushAll() {
+    return inFlight.onFailure().recoverWithNull()
+      .flatMap(avoid -> flush())
+      .flatMap(avoid -> pending.isEmpty() ? Uni.createFrom().voidItem() : flushAll());
+  }
+
+  private synchronized Uni<Void> flush() {
+    if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+      return Uni.createFrom().voidItem();
+    }
+    final var params = new ArrayList<Map<String, Object>>(pending.size());
+    for (final var key : pending.keySet()) {
+      final var state = pending.remove(key);
+      if (state != null) {
+        final var paramMap = new HashMap<String, Object>();
+        AggregateSnapshotMapper.INSTANCE.params(paramMap, snapshotRecord(state));
+        params.add(paramMap);
+      }
+    }
+    if (params.isEmpty()) {
+      flushing.set(false);
+      return Uni.createFrom().voidItem();
+    }
+    LOGGER.debug("Flushing " + params.size() + " snapshots");
+    this.inFlight = repository.updateBatch(UPSERT_STATEMENT, params)
+      .onTermination().invoke(() -> flushing.set(false))
+      .memoize().indefinitely();
+    return inFlight;
+  }
+
+  private static AggregateRecordKey recordKey(Class<?> aggregateClass, String aggregateId, String tenantId) {
+    return new AggregateRecordKey(aggregateClass.getName(), aggregateId, tenantId);
+  }
+
+  private static <T extends Aggregate> AggregateSnapshotRecord snapshotRecord(AggregateState<T> state) {
+    return new AggregateSnapshotRecord(
+      state.state().aggregateId(),
+      state.aggregateClass().getName(),
+      state.currentVersion(),
+      state.knownCommands().toList(),
+      TypeRegistry.resolve(state.aggregateClass()).write(state.state()),
+      state.journalOffset(),
+      SnapshotSchemas.currentSchemaVersion(state.state()),
+      BaseRecord.newRecord(state.state().tenantID())
+    );
+  }
+
+  private static <T extends Aggregate> AggregateState<T> aggregateState(Class<T> aggregateClass, AggregateSnapshotRecord snapshotRecord) {
+    return new AggregateState<>(aggregateClass)
+      .setState(SnapshotSchemas.read(aggregateClass, snapshotRecord.schemaVersion(), snapshotRecord.state()))
+      .setCurrentVersion(snapshotRecord.currentEventVersion())
+      .setSnapshotOffset(snapshotRecord.journalOffset())
+      .setJournalOffset(snapshotRecord.journalOffset())
+      .addKnownCommands(snapshotRecord.commandIds());
+  }
+
+  private static String upsertStatement() {
+    final var columns = new StringJoiner(", ");
+    final var params = new StringJoiner(", ");
+    AggregateSnapshotMapper.INSTANCE.columns().forEach(column -> {
+        columns.add(column);
+        params.add("#{" + column + "}");
+      }
+    );
+    return "insert into " + TABLE + " (" + columns + ") values (" + params + ")" +
+      " on conflict (" + AGGREGATE_CLASS + ", " + AGGREGATE_ID + ", " + TENANT + ") do update set " +
+      CURRENT_VERSION + " = excluded." + CURRENT_VERSION + ", " +
+      COMMAND_IDS + " = excluded." + COMMAND_IDS + ", " +
+      STATE + " = excluded." + STATE + ", " +
+      JOURNAL_OFFSET + " = excluded." + JOURNAL_OFFSET + ", " +
+      SCHEMA_VERSION + " = excluded." + SCHEMA_VERSION + ", " +
+      LAST_UPDATE + " = current_timestamp, " +
+      VERSION + " = " + TABLE + "." + VERSION + " + 1" +
+      " where " + TABLE + "." + CURRENT_VERSION + " < excluded." + CURRENT_VERSION + ";";
+  }
+
+}
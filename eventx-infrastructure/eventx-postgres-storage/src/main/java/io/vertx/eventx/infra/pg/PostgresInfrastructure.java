@@ -3,6 +3,7 @@ package io.vertx.eventx.infra.pg;
 import io.activej.inject.annotation.Inject;
 import io.activej.inject.annotation.Provides;
 import io.vertx.core.json.JsonObject;
+import io.vertx.eventx.infra.pg.mappers.AggregateSnapshotMapper;
 import io.vertx.eventx.infra.pg.mappers.EventJournalMapper;
 import io.vertx.eventx.infra.pg.mappers.JournalOffsetMapper;
 import io.vertx.eventx.infra.pg.models.*;
@@ -30,6 +31,14 @@ public class PostgresInfrastructure extends EventxModule {
   ) {
     return new PgOffsetStore(repository);
   }
+  @Provides
+  @Inject
+  SnapshotStore snapshotStore(
+    Repository<AggregateRecordKey, AggregateSnapshotRecord, EmptyQuery> repository
+  ) {
+    return new PgSnapshotStore(repository);
+  }
+
   @Provides
   @Inject
   RepositoryHandler repositoryHandler(JsonObject configuration, Vertx vertx) {
@@ -48,4 +57,10 @@ public class PostgresInfrastructure extends EventxModule {
     return new Repository<>(JournalOffsetMapper.INSTANCE, repositoryHandler);
   }
 
+  @Provides
+  @Inject
+  Repository<AggregateRecordKey, AggregateSnapshotRecord, EmptyQuery> aggregateSnapshot(RepositoryHandler repositoryHandler) {
+    return new Repository<>(AggregateSnapshotMapper.INSTANCE, repositoryHandler);
+  }
+
 }
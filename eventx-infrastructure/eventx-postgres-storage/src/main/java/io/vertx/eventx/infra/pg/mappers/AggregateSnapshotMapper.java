@@ -0,0 +1,98 @@
+package io.vertx.eventx.infra.pg.mappers;
+
+import io.vertx.eventx.infra.pg.models.AggregateRecordKey;
+import io.vertx.eventx.infra.pg.models.AggregateSnapshotRecord;
+import io.vertx.eventx.sql.RecordMapper;
+import io.vertx.eventx.sql.generator.filters.QueryBuilder;
+import io.vertx.eventx.sql.models.BaseRecord;
+import io.vertx.eventx.sql.models.EmptyQuery;
+import io.vertx.sqlclient.Row;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class AggregateSnapshotMapper implements RecordMapper<AggregateRecordKey, AggregateSnapshotRecord, EmptyQuery> {
+  public static final AggregateSnapshotMapper INSTANCE = new AggregateSnapshotMapper();
+  public static final String TABLE = "aggregate_snapshot";
+  public static final String AGGREGATE_CLASS = "aggregate_class";
+  public static final String AGGREGATE_ID = "aggregate_id";
+  public static final String CURRENT_VERSION = "current_version";
+  public static final String COMMAND_IDS = "command_ids";
+  public static final String STATE = "state";
+  public static final String JOURNAL_OFFSET = "journal_offset";
+  public static final String SCHEMA_VERSION = "schema_version";
+  public static final String TENANT = "tenant";
+  public static final String VERSION = "version";
+  public static final String CREATION_DATE = "creation_date";
+  public static final String LAST_UPDATE = "last_update";
+
+  private AggregateSnapshotMapper() {
+  }
+
+  @Override
+  public String table() {
+    return TABLE;
+  }
+
+  @Override
+  public Set<String> columns() {
+    return Set.of(AGGREGATE_CLASS, AGGREGATE_ID, CURRENT_VERSION, COMMAND_IDS, STATE, JOURNAL_OFFSET, SCHEMA_VERSION, TENANT);
+  }
+
+  @Override
+  public Set<String> keyColumns() {
+    return Set.of(AGGREGATE_CLASS, AGGREGATE_ID, TENANT);
+  }
+
+  @Override
+  public AggregateSnapshotRecord rowMapper(Row row) {
+    return new AggregateSnapshotRecord(
+      row.getString(AGGREGATE_ID),
+      row.getString(AGGREGATE_CLASS),
+      row.getLong(CURRENT_VERSION),
+      row.getArrayOfStrings(COMMAND_IDS) != null ? Arrays.stream(row.getArrayOfStrings(COMMAND_IDS)).toList() : List.of(),
+      row.getJsonObject(STATE),
+      row.getLong(JOURNAL_OFFSET),
+      row.getInteger(SCHEMA_VERSION),
+      baseRecord(row)
+    );
+  }
+
+  @Override
+  public BaseRecord baseRecord(Row row) {
+    return new BaseRecord(
+      row.getString(TENANT),
+      row.getInteger(VERSION),
+      row.getLocalDateTime(CREATION_DATE).toInstant(ZoneOffset.UTC),
+      row.getLocalDateTime(LAST_UPDATE).toInstant(ZoneOffset.UTC)
+    );
+  }
+
+  @Override
+  public void params(Map<String, Object> params, AggregateSnapshotRecord actualRecord) {
+    params.put(AGGREGATE_CLASS, actualRecord.aggregateClass());
+    params.put(AGGREGATE_ID, actualRecord.entityId());
+    params.put(CURRENT_VERSION, actualRecord.currentEventVersion());
+    params.put(COMMAND_IDS, actualRecord.commandIds().toArray(String[]::new));
+    params.put(STATE, actualRecord.state());
+    params.put(JOURNAL_OFFSET, actualRecord.journalOffset());
+    params.put(SCHEMA_VERSION, actualRecord.schemaVersion());
+    params.put(TENANT, actualRecord.baseRecord().tenantId());
+  }
+
+  @Override
+  public void keyParams(Map<String, Object> params, AggregateRecordKey key) {
+    params.put(AGGREGATE_CLASS, key.aggregateClass());
+    params.put(AGGREGATE_ID, key.aggregateId());
+    params.put(TENANT, key.tenantId());
+  }
+
+  @Override
+  public void queryBuilder(EmptyQuery query, QueryBuilder builder) {
+
+  }
+
+}
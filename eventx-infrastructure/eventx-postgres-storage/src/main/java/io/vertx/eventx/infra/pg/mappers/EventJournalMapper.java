@@ -15,16 +15,17 @@ import java.util.Set;
 
 public class EventJournalMapper implements RecordMapper<EventRecordKey, EventRecord, EventRecordQuery> {
   public static final String TABLE = "event_journal";
-  private static final String AGGREGATE_ID = "aggregate_id";
+  public static final String AGGREGATE_ID = "aggregate_id";
   public static final String ID = "id";
-  private static final String EVENT = "event";
+  public static final String EVENT = "event";
   public static final String EVENT_VERSION = "event_version";
-  private static final String EVENT_CLASS = "event_class";
+  public static final String EVENT_CLASS = "event_class";
   public static final EventJournalMapper INSTANCE = new EventJournalMapper();
   public static final String COMMAND_ID = "command_id";
   public static final String AGGREGATE_CLASS = "aggregate_class";
   public static final String TAGS = "tags";
   public static final String SCHEMA_VERSION = "schema_version";
+  public static final String TENANT = "tenant";
 
   private EventJournalMapper() {
   }
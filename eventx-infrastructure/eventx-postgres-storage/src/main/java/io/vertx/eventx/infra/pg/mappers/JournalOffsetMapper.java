@@ -4,9 +4,11 @@ import io.vertx.eventx.infra.pg.models.EventJournalOffSet;
 import io.vertx.eventx.infra.pg.models.EventJournalOffSetKey;
 import io.vertx.eventx.sql.RecordMapper;
 import io.vertx.eventx.sql.generator.filters.QueryBuilder;
+import io.vertx.eventx.sql.models.BaseRecord;
 import io.vertx.eventx.sql.models.EmptyQuery;
 import io.vertx.sqlclient.Row;
 
+import java.time.ZoneOffset;
 import java.util.Map;
 import java.util.Set;
 
@@ -15,12 +17,14 @@ public class JournalOffsetMapper implements RecordMapper<EventJournalOffSetKey,
 
 
   public static final JournalOffsetMapper INSTANCE = new JournalOffsetMapper();
-  public static final String TABLE_NAME = "projection_offset";
+  public static final String TABLE_NAME = "consumers_offset";
   public static final String ID_OFFSET = "id_offset";
   public static final String EVENT_OFFSET = "event_offset";
   public static final String CONSUMER = "consumer";
-  public static final String DATE_OFFSET = "data_offset";
-
+  public static final String TENANT = "tenant";
+  public static final String VERSION = "version";
+  public static final String CREATION_DATE = "creation_date";
+  public static final String LAST_UPDATE = "last_update";
 
 
   private JournalOffsetMapper() {
@@ -34,12 +38,12 @@ public class JournalOffsetMapper implements RecordMapper<EventJournalOffSetKey,
 
   @Override
   public Set<String> columns() {
-    return Set.of(ID_OFFSET,EVENT_OFFSET, CONSUMER);
+    return Set.of(ID_OFFSET, EVENT_OFFSET, CONSUMER, TENANT);
   }
 
   @Override
   public Set<String> keyColumns() {
-    return Set.of(CONSUMER);
+    return Set.of(CONSUMER, TENANT);
   }
 
   @Override
@@ -52,16 +56,28 @@ public class JournalOffsetMapper implements RecordMapper<EventJournalOffSetKey,
     );
   }
 
+  @Override
+  public BaseRecord baseRecord(Row row) {
+    return new BaseRecord(
+      row.getString(TENANT),
+      row.getInteger(VERSION),
+      row.getLocalDateTime(CREATION_DATE).toInstant(ZoneOffset.UTC),
+      row.getLocalDateTime(LAST_UPDATE).toInstant(ZoneOffset.UTC)
+    );
+  }
+
   @Override
   public void params(Map<String, Object> params, EventJournalOffSet actualRecord) {
     params.put(CONSUMER, actualRecord.consumer());
     params.put(ID_OFFSET, actualRecord.idOffSet());
     params.put(EVENT_OFFSET, actualRecord.eventVersionOffset());
+    params.put(TENANT, actualRecord.baseRecord().tenantId());
   }
 
   @Override
   public void keyParams(Map<String, Object> params, EventJournalOffSetKey key) {
     params.put(CONSUMER, key.consumer());
+    params.put(TENANT, key.tenantId());
   }
 
   @Override
@@ -13,17 +13,18 @@ public record AggregateSnapshotRecord(
   List<String> commandIds,
   JsonObject state,
   Long journalOffset,
+  Integer schemaVersion,
   BaseRecord baseRecord
 ) implements RepositoryRecord<AggregateSnapshotRecord> {
 
 
   @Override
   public AggregateSnapshotRecord with(final BaseRecord baseRecord) {
-    return new AggregateSnapshotRecord(entityId, aggregateClass, currentEventVersion, commandIds, state, journalOffset, baseRecord);
+    return new AggregateSnapshotRecord(entityId, aggregateClass, currentEventVersion, commandIds, state, journalOffset, schemaVersion, baseRecord);
   }
 
   public AggregateSnapshotRecord withState(final Long currentEventVersion, final List<String> commandIds, final JsonObject newState) {
-    return new AggregateSnapshotRecord(entityId, aggregateClass, currentEventVersion, commandIds, newState, journalOffset, baseRecord);
+    return new AggregateSnapshotRecord(entityId, aggregateClass, currentEventVersion, commandIds, newState, journalOffset, schemaVersion, baseRecord);
   }
 
 }
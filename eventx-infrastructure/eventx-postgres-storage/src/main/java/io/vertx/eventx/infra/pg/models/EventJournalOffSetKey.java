@@ -4,6 +4,7 @@ package io.vertx.eventx.infra.pg.models;
 import io.vertx.eventx.sql.models.RepositoryRecordKey;
 
 public record EventJournalOffSetKey(
-  String consumer
+  String consumer,
+  String tenantId
 ) implements RepositoryRecordKey {
 }
@@ -2,6 +2,7 @@
 
 package io.vertx.eventx.sql;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
@@ -493,6 +494,21 @@ public final class Repository<K extends RepositoryRecordKey, V extends Repositor
     return stream(Uni.createFrom().voidItem(), handler, statement, params);
   }
 
+  @Override
+  public Uni<Void> stream(Consumer<V> handler, String statement, Map<String, Object> paramMap) {
+    final var template = io.vertx.sqlclient.templates.impl.SqlTemplate.create(null, statement);
+    final var params = Tuple.newInstance(template.mapTuple(paramMap));
+    return stream(Uni.createFrom().voidItem(), handler, template.getSql(), params);
+  }
+
+
+  @Override
+  public Multi<V> stream(String statement, Map<String, Object> paramMap, int fetchSize) {
+    final var template = io.vertx.sqlclient.templates.impl.SqlTemplate.create(null, statement);
+    final var params = Tuple.newInstance(template.mapTuple(paramMap));
+    logOperation("Streaming", template.getSql(), params);
+    return repositoryHandler.handleCursorStream(template.getSql(), queryGeneratorMapper.recordRowMapper, params, fetchSize);
+  }
 
   @Override
   public <T> Uni<T> transaction(Function<SqlConnection, Uni<T>> function) {
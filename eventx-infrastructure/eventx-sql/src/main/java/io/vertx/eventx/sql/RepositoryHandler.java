@@ -75,6 +75,16 @@ public record RepositoryHandler(
       .setName(config.getString("schema", EnvVars.SCHEMA) + "-postgres-pool");
   }
 
+  /**
+   * Cursors hold their connection for as long as the stream lasts, they get a budget of their own
+   * so a few long reads can't starve the main pool.
+   */
+  private static PoolOptions cursorPoolOptions(JsonObject config) {
+    return poolOptions(config)
+      .setMaxSize(config.getInteger("pgCursorPoolSize", 2))
+      .setName(config.getString("schema", EnvVars.SCHEMA) + "-postgres-cursors");
+  }
+
   private static PoolOptions pooledOptions(JsonObject config) {
     return new PoolOptions()
       .setConnectionTimeoutUnit(TimeUnit.SECONDS)
@@ -381,6 +391,34 @@ public record RepositoryHandler(
       .onFailure().transform(this::mapError);
   }
 
+  /**
+   * Reads the rows through a cursor, fetching the next {@code fetchSize} rows only once downstream requested them.
+   * The connection and its transaction are held until the stream completes, fails or is cancelled,
+   * connections come from the shared cursor pool sized by pgCursorPoolSize.
+   * Long reads should take a bounded number of rows and open a new stream from where they stopped,
+   * an open transaction holds back vacuum for as long as it lasts.
+   */
+  public <V> Multi<V> handleCursorStream(String statement, RowMapper<V> rowMapper, Tuple arguments, int fetchSize) {
+    logger.debug("Handling cursor stream :" + statement);
+    return Multi.createFrom().deferred(() -> {
+        final var cursorPool = PgPool.pool(vertx, connectionOptions(configuration), cursorPoolOptions(configuration));
+        return Multi.createFrom().resourceFromUni(
+            () -> cursorPool.getConnection().onFailure().call(cursorPool::close),
+            sqlConnection -> sqlConnection.begin()
+              .flatMap(transaction -> sqlConnection.prepare(statement))
+              .onItem().transformToMulti(preparedStatement -> preparedStatement.createStream(fetchSize, arguments).toMulti())
+              .map(rowMapper::map)
+          )
+          .withFinalizer(sqlConnection -> {
+              // closing the connection rolls back the read only transaction and releases the cursor
+              return sqlConnection.close().eventually(cursorPool::close);
+            }
+          );
+      }
+    )
+      .onFailure().transform(this::mapError);
+  }
+
   public <V> Uni<Void> handleStreamProcessing(PgPool pgPool, Lock lock, String statement, RowMapper<V> rowMapper, Consumer<V> vConsumer) {
     logger.debug("Handling stream query :" + statement);
     return pgPool.getConnection()
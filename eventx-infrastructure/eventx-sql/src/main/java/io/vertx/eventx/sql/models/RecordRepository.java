@@ -2,6 +2,7 @@
 
 package io.vertx.eventx.sql.models;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import io.vertx.mutiny.sqlclient.SqlConnection;
 import io.vertx.eventx.sql.exceptions.GenericFailure;
@@ -165,6 +166,17 @@ public interface RecordRepository<K, V extends RepositoryRecord<V>, Q extends Qu
 
     Uni<Void> stream(Consumer<V> handler, Q query);
 
+    default Uni<Void> stream(Consumer<V> handler, String statement, Map<String, Object> params) {
+        throw GenericFailure.notImplemented();
+    }
+
+    /**
+     * Cursor backed stream of the statement results, {@code fetchSize} rows are read at a time as they are requested.
+     */
+    default Multi<V> stream(String statement, Map<String, Object> params, int fetchSize) {
+        throw GenericFailure.notImplemented();
+    }
+
 
     default <T> Uni<T> transaction(Function<SqlConnection, Uni<T>> function) {
         throw GenericFailure.notImplemented();
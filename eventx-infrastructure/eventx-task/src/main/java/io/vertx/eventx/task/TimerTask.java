@@ -9,6 +9,14 @@ import java.util.List;
 public interface TimerTask {
 
   Uni<Void> performTask();
+
+  /**
+   * Names the task lock, tasks deployed once per aggregate must include the aggregate to not contend with each other.
+   */
+  default String name() {
+    return getClass().getName();
+  }
+
   default TimerTaskConfiguration configuration() {
     return new TimerTaskConfiguration(
       LockLevel.LOCAL,
@@ -12,22 +12,44 @@ import io.vertx.mutiny.core.shareddata.Lock;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class TimerTaskDeployer {
 
   protected static final Logger LOGGER = LoggerFactory.getLogger(TimerTaskDeployer.class);
 
-  public static final Map<Class<?>, Long> timers = new HashMap<>();
+  // keyed by task instance, every aggregate deploys its own instances of the same task classes
+  private static final Map<TimerTask, Runnable> WAKE_UPS = new ConcurrentHashMap<>();
 
   List<TaskWrapper> taskWrappers;
   private Vertx vertx;
 
   public void close() {
-    timers.forEach((tClass, timerId) -> vertx.cancelTimer(timerId));
+    if (taskWrappers != null) {
+      taskWrappers.forEach(taskWrapper -> {
+          WAKE_UPS.remove(taskWrapper.task());
+          final var timerId = taskWrapper.timerId().get();
+          if (timerId >= 0) {
+            vertx.cancelTimer(timerId);
+          }
+        }
+      );
+    }
+  }
+
+  /**
+   * Runs the task now instead of waiting for its throttle, a task that is running goes again as soon as it ends.
+   */
+  public static void wakeUp(TimerTask task) {
+    final var wakeUp = WAKE_UPS.get(task);
+    if (wakeUp != null) {
+      wakeUp.run();
+    }
   }
   public void deploy(final Injector injector) {
     this.vertx = injector.getInstance(Vertx.class);
@@ -39,31 +61,50 @@ public class TimerTaskDeployer {
           }
         )
         .toList();
-      taskWrappers.forEach(taskWrapper -> triggerTask(taskWrapper, vertx, 10L));
+      taskWrappers.forEach(taskWrapper -> {
+          WAKE_UPS.put(taskWrapper.task(), () -> {
+              taskWrapper.wokenUp().set(true);
+              if (!taskWrapper.running().get()) {
+                runSooner(taskWrapper, vertx);
+              }
+            }
+          );
+          triggerTask(taskWrapper, vertx, 10L);
+        }
+      );
     }
   }
 
   public static void triggerTask(TaskWrapper taskWrapper, Vertx vertx, Long throttle) {
-    timers.remove(taskWrapper.task().getClass());
+    taskWrapper.timerId().set(-1L);
     final var timerId = vertx.setTimer(
       throttle,
       delay -> {
+        if (!taskWrapper.running().compareAndSet(false, true)) {
+          // the tick isn't dropped, the run in flight reschedules the task right after it ends
+          taskWrapper.wokenUp().set(true);
+          return;
+        }
+        taskWrapper.wokenUp().set(false);
         final var start = Instant.now();
         final var lockUni = switch (taskWrapper.task().configuration().lockLevel()) {
-          case CLUSTER_WIDE -> vertx.sharedData().getLock(taskWrapper.task().getClass().getName());
-          case LOCAL -> vertx.sharedData().getLocalLock(taskWrapper.task().getClass().getName());
+          case CLUSTER_WIDE -> vertx.sharedData().getLock(taskWrapper.task().name());
+          case LOCAL -> vertx.sharedData().getLocalLock(taskWrapper.task().name());
           case NONE -> Uni.createFrom().item(Lock.newInstance(() -> {
           }));
         };
         lockUni.flatMap(lock -> taskWrapper.task().performTask().onItemOrFailure().invoke((avoid, failure) -> lock.release()))
+          .onTermination().invoke(() -> taskWrapper.running().set(false))
           .subscribe()
           .with(avoid -> {
               final var end = Instant.now();
-              final var emptyTaskBackOff = taskWrapper.task().configuration().throttleInMs();
-              taskWrapper.logger().info("Task ran in " + Duration.between(start, end).toMillis() + "ms. Throttling for " + emptyTaskBackOff + "ms");
+              final var emptyTaskBackOff = taskWrapper.wokenUp().getAndSet(false) ? 1L : taskWrapper.task().configuration().throttleInMs();
+              taskWrapper.logger().debug("Task ran in " + Duration.between(start, end).toMillis() + "ms. Throttling for " + emptyTaskBackOff + "ms");
               triggerTask(taskWrapper, vertx, emptyTaskBackOff);
             },
             throwable -> {
+              // a failed run backs off, whatever woke it up
+              taskWrapper.wokenUp().set(false);
               final var end = Instant.now();
               if (taskWrapper.task.configuration().knownInterruptions().stream().anyMatch(t -> t.isAssignableFrom(throwable.getClass()))) {
                 taskWrapper.logger().debug("Task interrupted by" + throwable.getClass().getSimpleName() + " after " + Duration.between(start, end).toMillis() + "ms");
@@ -84,15 +125,35 @@ public class TimerTaskDeployer {
           );
       }
     );
-    timers.put(taskWrapper.task().getClass(), timerId);
+    taskWrapper.timerId().set(timerId);
+    // a wake-up that landed before the timer id was published couldn't cancel it, it's picked up here
+    if (throttle > 1L && taskWrapper.wokenUp().get()) {
+      runSooner(taskWrapper, vertx);
+    }
+  }
+
+  /**
+   * Replaces the pending timer with an immediate run, cancelling the timer is what makes sure only one caller does it.
+   */
+  private static void runSooner(TaskWrapper taskWrapper, Vertx vertx) {
+    final var timerId = taskWrapper.timerId().get();
+    if (timerId >= 0 && vertx.cancelTimer(timerId)) {
+      triggerTask(taskWrapper, vertx, 1L);
+    }
   }
 
 
 
   public record TaskWrapper(
     TimerTask task,
-    Logger logger
+    Logger logger,
+    AtomicBoolean running,
+    AtomicBoolean wokenUp,
+    AtomicLong timerId
   ) {
+    public TaskWrapper(TimerTask task, Logger logger) {
+      this(task, logger, new AtomicBoolean(false), new AtomicBoolean(false), new AtomicLong(-1L));
+    }
   }
 
 }
@@ -0,0 +1,74 @@
+package io.vertx.eventx.test.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.eventx.infrastructure.bus.BinaryCodec;
+import io.vertx.eventx.test.eventsourcing.domain.FakeAggregate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the json path used for aggregate replies against the smile {@link BinaryCodec},
+ * each operation is one encode to the wire buffer and one decode back to the aggregate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregateCodecBenchmark {
+
+  @Param({"10", "1000"})
+  public int entries;
+
+  private final BinaryCodec codec = new BinaryCodec();
+  private FakeAggregate aggregate;
+
+  @Setup
+  public void setup() {
+    final var data = new HashMap<String, Object>();
+    for (int i = 0; i < entries; i++) {
+      data.put("key-" + i, Map.of(
+          "id", UUID.randomUUID().toString(),
+          "amount", i * 1.5,
+          "count", i,
+          "tags", List.of("a", "b", "c")
+        )
+      );
+    }
+    this.aggregate = new FakeAggregate(UUID.randomUUID().toString(), data);
+  }
+
+  @Benchmark
+  public FakeAggregate json() {
+    final var buffer = Buffer.buffer();
+    final var encoded = JsonObject.mapFrom(aggregate).toBuffer();
+    buffer.appendInt(encoded.length()).appendBuffer(encoded);
+    final var length = buffer.getInt(0);
+    return new JsonObject(buffer.getBuffer(4, 4 + length)).mapTo(FakeAggregate.class);
+  }
+
+  @Benchmark
+  public FakeAggregate binary() {
+    final var buffer = Buffer.buffer();
+    codec.encodeToWire(buffer, aggregate);
+    return (FakeAggregate) codec.decodeFromWire(0, buffer);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(AggregateCodecBenchmark.class.getSimpleName())
+      .build()
+    ).run();
+  }
+
+}
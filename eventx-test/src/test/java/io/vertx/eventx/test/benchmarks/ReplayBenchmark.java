@@ -0,0 +1,157 @@
+package io.vertx.eventx.test.benchmarks;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import io.vertx.eventx.Aggregate;
+import io.vertx.eventx.core.AggregateVerticleLogic;
+import io.vertx.eventx.infrastructure.AggregateCache;
+import io.vertx.eventx.infrastructure.EventStore;
+import io.vertx.eventx.infrastructure.Infrastructure;
+import io.vertx.eventx.infrastructure.models.*;
+import io.vertx.eventx.objects.AggregateConfiguration;
+import io.vertx.eventx.objects.AggregateState;
+import io.vertx.eventx.objects.AggregatorWrapper;
+import io.vertx.eventx.objects.BehaviourWrapper;
+import io.vertx.eventx.test.eventsourcing.domain.FakeAggregate;
+import io.vertx.eventx.test.eventsourcing.domain.behaviours.ChangedAggregator;
+import io.vertx.eventx.test.eventsourcing.domain.behaviours.CreateAggregator;
+import io.vertx.eventx.test.eventsourcing.domain.behaviours.CreateBehaviour;
+import io.vertx.eventx.test.eventsourcing.domain.commands.CreateData;
+import io.vertx.eventx.test.eventsourcing.domain.events.DataChanged;
+import io.vertx.eventx.test.eventsourcing.domain.events.DataCreated;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Rebuilds an aggregate from an in-memory journal on every operation, isolates the replay loop
+ * (parsing, aggregators, bookkeeping and logging) from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+
+  @Param({"100", "10000"})
+  public int events;
+
+  private AggregateVerticleLogic<FakeAggregate> logic;
+  private AggregatePlainKey key;
+
+  @Setup
+  public void setup() {
+    final var aggregateId = UUID.randomUUID().toString();
+    final var journal = new ArrayList<Event>(events);
+    journal.add(event(0, aggregateId, new DataCreated(aggregateId, Map.of("version", 0))));
+    for (int i = 1; i < events; i++) {
+      journal.add(event(i, aggregateId, new DataChanged(Map.of("version", i))));
+    }
+    this.key = new AggregatePlainKey(FakeAggregate.class.getName(), aggregateId, "default");
+    this.logic = new AggregateVerticleLogic<>(
+      FakeAggregate.class,
+      List.of(
+        new AggregatorWrapper<>(new CreateAggregator(), FakeAggregate.class, DataCreated.class),
+        new AggregatorWrapper<>(new ChangedAggregator(), FakeAggregate.class, DataChanged.class)
+      ),
+      List.of(new BehaviourWrapper<>(new CreateBehaviour(), FakeAggregate.class, CreateData.class)),
+      new AggregateConfiguration(),
+      new Infrastructure(new NoCache(), new InMemoryJournal(journal), null, null)
+    );
+  }
+
+  private static Event event(long offset, String aggregateId, io.vertx.eventx.Event event) {
+    return new Event(
+      offset,
+      FakeAggregate.class.getName(),
+      aggregateId,
+      event.getClass().getName(),
+      offset,
+      JsonObject.mapFrom(event),
+      "default",
+      UUID.randomUUID().toString(),
+      List.of(),
+      0
+    );
+  }
+
+  @Benchmark
+  public JsonObject replay() {
+    return logic.loadAggregate(key).await().indefinitely();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+      .include(ReplayBenchmark.class.getSimpleName())
+      .build()
+    ).run();
+  }
+
+  private static class NoCache implements AggregateCache {
+    @Override
+    public <T extends Aggregate> AggregateState<T> get(AggregateKey<T> aggregateKey) {
+      return null;
+    }
+
+    @Override
+    public <T extends Aggregate> void put(AggregateKey<T> aggregateKey, AggregateState<T> aggregate) {
+    }
+  }
+
+  private record InMemoryJournal(List<Event> journal) implements EventStore {
+    @Override
+    public <T extends Aggregate> Uni<List<Event>> fetch(AggregateEventStream<T> aggregateEventStream) {
+      return Uni.createFrom().item(journal);
+    }
+
+    @Override
+    public <T extends Aggregate> Uni<Void> stream(AggregateEventStream<T> aggregateEventStream, Consumer<Event> consumer) {
+      journal.forEach(consumer);
+      return Uni.createFrom().voidItem();
+    }
+
+    @Override
+    public Uni<List<Event>> fetch(EventStream eventStream) {
+      return Uni.createFrom().item(journal);
+    }
+
+    @Override
+    public Uni<Void> stream(EventStream eventStream, Consumer<Event> consumer) {
+      journal.forEach(consumer);
+      return Uni.createFrom().voidItem();
+    }
+
+    @Override
+    public <T extends Aggregate> Uni<List<Event>> append(AppendInstruction<T> appendInstruction) {
+      return Uni.createFrom().failure(new UnsupportedOperationException());
+    }
+
+    @Override
+    public <T extends Aggregate> Uni<Set<String>> knownCommands(AggregateKey<T> aggregateKey, Collection<String> commandIds) {
+      return Uni.createFrom().item(Set.of());
+    }
+
+    @Override
+    public Uni<Void> close() {
+      return Uni.createFrom().voidItem();
+    }
+
+    @Override
+    public Uni<Void> start() {
+      return Uni.createFrom().voidItem();
+    }
+  }
+
+}
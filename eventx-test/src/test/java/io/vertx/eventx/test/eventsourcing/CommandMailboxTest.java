@@ -0,0 +1,195 @@
+package io.vertx.eventx.test.eventsourcing;
+
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.eventx.Command;
+import io.vertx.eventx.core.AggregateVerticleLogic;
+import io.vertx.eventx.core.CommandMailbox;
+import io.vertx.eventx.core.CommandOutcome;
+import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+import io.vertx.eventx.objects.AggregateConfiguration;
+import io.vertx.eventx.objects.AggregatorWrapper;
+import io.vertx.eventx.objects.BehaviourWrapper;
+import io.vertx.eventx.objects.CommandHeaders;
+import io.vertx.eventx.test.eventsourcing.domain.FakeAggregate;
+import io.vertx.eventx.test.eventsourcing.domain.behaviours.ChangedAggregator;
+import io.vertx.eventx.test.eventsourcing.domain.events.DataChanged;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandMailboxTest {
+
+  private static final Vertx VERTX = Vertx.vertx();
+
+  @AfterAll
+  static void close() {
+    VERTX.close();
+  }
+
+  private static AggregatePlainKey key(String aggregateId) {
+    return new AggregatePlainKey(FakeAggregate.class.getName(), aggregateId, "default");
+  }
+
+  private static Change command(AggregatePlainKey key, String data) {
+    return new Change(key.aggregateId(), data, null);
+  }
+
+  private static <T> T await(CompletableFuture<T> future) throws Exception {
+    return future.get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Waits for the tasks already queued on the context, dispatched commands are in the mailbox once it returns.
+   */
+  private static void settle(Context context) throws Exception {
+    final var settled = new CompletableFuture<Void>();
+    context.runOnContext(avoid -> settled.complete(null));
+    await(settled);
+  }
+
+  @Test
+  void batchesTheCommandsQueuedWhileABatchIsInFlight() throws Exception {
+    final var context = VERTX.getOrCreateContext();
+    final var logic = new RecordingLogic(context);
+    final var key = key("batched");
+    logic.hold();
+    final var first = submit(key, command(key, "1"), logic, context, 2, new AtomicInteger());
+    settle(context);
+    final var queued = List.of(
+      submit(key, command(key, "2"), logic, context, 2, new AtomicInteger()),
+      submit(key, command(key, "3"), logic, context, 2, new AtomicInteger()),
+      submit(key, command(key, "4"), logic, context, 2, new AtomicInteger())
+    );
+    settle(context);
+    assertEquals(1, logic.batches.size());
+    logic.release();
+    assertEquals("1", await(first).data().get("data"));
+    for (int i = 0; i < queued.size(); i++) {
+      assertEquals(String.valueOf(i + 2), await(queued.get(i)).data().get("data"));
+    }
+    assertEquals(List.of(List.of("1"), List.of("2", "3"), List.of("4")), logic.batchData());
+  }
+
+  @Test
+  void failsOnlyTheRejectedCommandOfABatch() throws Exception {
+    final var context = VERTX.getOrCreateContext();
+    final var logic = new RecordingLogic(context);
+    final var key = key("rejected");
+    logic.hold();
+    final var first = submit(key, command(key, "1"), logic, context, 10, new AtomicInteger());
+    settle(context);
+    final var before = submit(key, command(key, "2"), logic, context, 10, new AtomicInteger());
+    final var rejected = submit(key, command(key, RecordingLogic.REJECT), logic, context, 10, new AtomicInteger());
+    final var after = submit(key, command(key, "3"), logic, context, 10, new AtomicInteger());
+    settle(context);
+    logic.release();
+    assertEquals("1", await(first).data().get("data"));
+    assertEquals("2", await(before).data().get("data"));
+    final var failure = assertThrows(ExecutionException.class, () -> await(rejected));
+    assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+    assertEquals("3", await(after).data().get("data"));
+    assertEquals(List.of(List.of("1"), List.of("2", RecordingLogic.REJECT, "3")), logic.batchData());
+  }
+
+  @Test
+  void reopensAMailboxForACommandThatRacedItsClose() throws Exception {
+    final var context = VERTX.getOrCreateContext();
+    final var logic = new RecordingLogic(context);
+    final var key = key("raced");
+    final var mailboxes = new AtomicInteger();
+    final var raced = new AtomicReference<CompletableFuture<FakeAggregate>>();
+    // submitted from the completion of the last queued command, the mailbox closes before the new command reaches it
+    final var first = CommandMailbox.submit(key, command(key, "1"), mailbox(logic, context, 10, mailboxes))
+      .invoke(avoid -> raced.set(submit(key, command(key, "2"), logic, context, 10, mailboxes)))
+      .subscribeAsCompletionStage();
+    assertEquals("1", await(first).data().get("data"));
+    assertEquals("2", await(raced.get()).data().get("data"));
+    assertEquals(2, mailboxes.get());
+    assertEquals(List.of(List.of("1"), List.of("2")), logic.batchData());
+  }
+
+  private static CompletableFuture<FakeAggregate> submit(AggregatePlainKey key, Command command, RecordingLogic logic, Context context, int maxBatchSize, AtomicInteger mailboxes) {
+    return CommandMailbox.submit(key, command, mailbox(logic, context, maxBatchSize, mailboxes))
+      .subscribeAsCompletionStage();
+  }
+
+  private static Function<AggregatePlainKey, CommandMailbox<FakeAggregate>> mailbox(RecordingLogic logic, Context context, int maxBatchSize, AtomicInteger mailboxes) {
+    return key -> {
+      mailboxes.incrementAndGet();
+      return new CommandMailbox<>(logic, key, context, maxBatchSize);
+    };
+  }
+
+  /**
+   * Records the batches it's handed and accepts every command but the ones carrying {@link #REJECT}.
+   */
+  private static final class RecordingLogic extends AggregateVerticleLogic<FakeAggregate> {
+    private static final String REJECT = "reject";
+    private final Context context;
+    private final List<List<Command>> batches = new CopyOnWriteArrayList<>();
+    private volatile CompletableFuture<Void> gate = CompletableFuture.completedFuture(null);
+
+    private RecordingLogic(Context context) {
+      super(
+        FakeAggregate.class,
+        List.of(new AggregatorWrapper<>(new ChangedAggregator(), FakeAggregate.class, DataChanged.class)),
+        List.of(new BehaviourWrapper<>((state, command) -> List.of(), FakeAggregate.class, Change.class)),
+        new AggregateConfiguration(),
+        null
+      );
+      this.context = context;
+    }
+
+    private void hold() {
+      gate = new CompletableFuture<>();
+    }
+
+    private void release() {
+      // the mailbox is confined to its context, so is the completion of its batches
+      final var held = gate;
+      gate = CompletableFuture.completedFuture(null);
+      context.runOnContext(avoid -> held.complete(null));
+    }
+
+    private List<List<String>> batchData() {
+      return batches.stream()
+        .map(batch -> batch.stream().map(command -> ((Change) command).data()).toList())
+        .toList();
+    }
+
+    @Override
+    public Uni<List<CommandOutcome<FakeAggregate>>> process(String aggregateId, String tenant, List<Command> commands) {
+      batches.add(commands);
+      return Uni.createFrom().completionStage(gate)
+        .map(avoid -> commands.stream()
+          .map(command -> (Change) command)
+          .map(command -> REJECT.equals(command.data())
+            ? CommandOutcome.<FakeAggregate>rejected(new IllegalArgumentException("Rejected " + command))
+            : CommandOutcome.accepted(new FakeAggregate(aggregateId, Map.of("data", command.data())))
+          )
+          .toList()
+        );
+    }
+  }
+
+  private record Change(
+    String aggregateId,
+    String data,
+    CommandHeaders headers
+  ) implements Command {
+  }
+
+}
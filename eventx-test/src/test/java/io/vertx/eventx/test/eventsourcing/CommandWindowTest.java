@@ -0,0 +1,37 @@
+package io.vertx.eventx.test.eventsourcing;
+
+import io.vertx.eventx.objects.CommandWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandWindowTest {
+
+  @Test
+  void evictsOldestOnceFull() {
+    final var window = new CommandWindow(3);
+    assertTrue(window.add("a"));
+    assertTrue(window.add("b"));
+    assertFalse(window.add("a"));
+    assertTrue(window.add("c"));
+    assertTrue(window.add("d"));
+    assertFalse(window.contains("a"));
+    assertTrue(window.contains("b"));
+    assertEquals(3, window.size());
+    assertEquals(List.of("b", "c", "d"), window.toList());
+  }
+
+  @Test
+  void largeWindowKeepsTheNewestIds() {
+    final var window = new CommandWindow(10000);
+    IntStream.range(0, 25000).forEach(i -> window.add("cmd-" + i));
+    assertEquals(10000, window.size());
+    assertFalse(window.contains("cmd-14999"));
+    assertTrue(window.contains("cmd-15000"));
+    assertEquals("cmd-24999", window.toList().get(9999));
+  }
+
+}
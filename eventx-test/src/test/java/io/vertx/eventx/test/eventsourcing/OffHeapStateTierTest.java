@@ -0,0 +1,108 @@
+package io.vertx.eventx.test.eventsourcing;
+
+import io.vertx.eventx.OffHeapStateTier;
+import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+import io.vertx.eventx.objects.AggregateState;
+import io.vertx.eventx.test.eventsourcing.domain.FakeAggregate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStateTierTest {
+
+  private static final int SEGMENTS = 16;
+  private static final int SEGMENT_SIZE = 1024;
+
+  private static AggregatePlainKey key(int i) {
+    return new AggregatePlainKey(FakeAggregate.class.getName(), "aggregate-%05d".formatted(i), "default");
+  }
+
+  private static AggregateState<FakeAggregate> state(AggregatePlainKey key, String data) {
+    final var state = new AggregateState<>(FakeAggregate.class, 3)
+      .setState(new FakeAggregate(key.aggregateId(), Map.of("data", data)))
+      .setCurrentVersion(5L)
+      .setSnapshotOffset(2L)
+      .setJournalOffset(42L);
+    List.of("a", "b", "c", "d").forEach(state::addKnownCommand);
+    return state;
+  }
+
+  private static OffHeapStateTier<FakeAggregate> tier() {
+    return new OffHeapStateTier<>(FakeAggregate.class, (long) SEGMENTS * SEGMENT_SIZE);
+  }
+
+  @Test
+  void roundTripsTheState() {
+    final var tier = tier();
+    final var key = key(0);
+    tier.put(key, state(key, "payload"));
+    final var state = tier.get(key);
+    assertEquals(new FakeAggregate(key.aggregateId(), Map.of("data", "payload")), state.state());
+    assertEquals(5L, state.currentVersion());
+    assertEquals(2L, state.snapshotOffset());
+    assertEquals(42L, state.journalOffset());
+    assertEquals(List.of("b", "c", "d"), state.knownCommands().toList());
+    assertTrue(state.knownCommands().evicted());
+    assertEquals(1, tier.size());
+    assertNull(tier.get(key(1)));
+  }
+
+  @Test
+  void replacesThePreviousCopy() {
+    final var tier = tier();
+    final var key = key(0);
+    tier.put(key, state(key, "first"));
+    final var usedBytes = tier.usedBytes();
+    tier.put(key, state(key, "other"));
+    assertEquals(1, tier.size());
+    assertEquals(usedBytes, tier.usedBytes());
+    assertEquals("other", tier.get(key).state().data().get("data"));
+  }
+
+  @Test
+  void dropsStatesLargerThanASegment() {
+    final var tier = tier();
+    final var key = key(0);
+    tier.put(key, state(key, "small"));
+    tier.put(key, state(key, "x".repeat(SEGMENT_SIZE)));
+    assertNull(tier.get(key));
+    assertEquals(0, tier.size());
+    assertEquals(0, tier.usedBytes());
+  }
+
+  @Test
+  void reclaimKeepsTheStatesReadSinceTheyWereWritten() {
+    final var tier = tier();
+    tier.put(key(0), state(key(0), "payload"));
+    final var entrySize = (int) tier.usedBytes();
+    final var perSegment = SEGMENT_SIZE / entrySize;
+    IntStream.range(1, perSegment).forEach(i -> tier.put(key(i), state(key(i), "payload")));
+    assertNotNull(tier.get(key(0)));
+    // fills the remaining segments, the next put wraps around to the first one
+    IntStream.range(perSegment, SEGMENTS * perSegment + 1).forEach(i -> tier.put(key(i), state(key(i), "payload")));
+    assertEquals("payload", tier.get(key(0)).state().data().get("data"));
+    IntStream.range(1, perSegment).forEach(i -> assertNull(tier.get(key(i))));
+    assertNotNull(tier.get(key(SEGMENTS * perSegment)));
+    assertEquals((long) tier.size() * entrySize, tier.usedBytes());
+  }
+
+  @Test
+  void removesMatchingStates() {
+    final var tier = tier();
+    IntStream.range(0, 10).forEach(i -> tier.put(key(i), state(key(i), "payload")));
+    final var entrySize = tier.usedBytes() / 10;
+    assertEquals(5, tier.removeIf(key -> Integer.parseInt(key.aggregateId().substring(10)) % 2 == 0));
+    assertEquals(5, tier.size());
+    assertEquals(5 * entrySize, tier.usedBytes());
+    assertNull(tier.get(key(0)));
+    assertNotNull(tier.get(key(1)));
+    tier.remove(key(1));
+    assertNull(tier.get(key(1)));
+    assertEquals(4 * entrySize, tier.usedBytes());
+  }
+
+}
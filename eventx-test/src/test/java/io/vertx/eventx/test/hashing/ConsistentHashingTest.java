@@ -271,6 +271,39 @@ class ConsistentHashingTest {
     }
   }
 
+  @Test
+  public void locateFallsBackToLeastLoadedMemberWhenAllAreOverTheBound() {
+    Config config = Config.getConfig();
+    config.setLoadFactor(0.1);
+    Consistent c = new Consistent(config);
+
+    Member m1 = new MemberImpl("node1.olric.io");
+    c.addMember(m1);
+    Member m2 = new MemberImpl("node2.olric.io");
+    c.addMember(m2);
+
+    IntStream.range(0, 10).forEach(i -> c.incrLoad(m1));
+    IntStream.range(0, 5).forEach(i -> c.incrLoad(m2));
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(m2, c.locate(String.format("foobar-%d", i)));
+    }
+  }
+
+  @Test
+  public void ownerIgnoresLoads() {
+    Consistent c = new Consistent(Config.getConfig());
+    createMembers(c, 3);
+    String key = "foobar";
+    Member owner = c.owner(key);
+    assertEquals(owner, c.locate(key));
+
+    IntStream.range(0, 100).forEach(i -> c.incrLoad(owner));
+
+    assertNotEquals(owner, c.locate(key));
+    assertEquals(owner, c.owner(key));
+  }
+
   @Test
   public void getMembers() {
     Consistent c = new Consistent(Config.getConfig());
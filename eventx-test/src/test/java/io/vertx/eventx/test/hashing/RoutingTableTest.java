@@ -0,0 +1,64 @@
+package io.vertx.eventx.test.hashing;
+
+import io.vertx.eventx.infrastructure.bus.RoutingTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingTableTest {
+
+  private static final List<String> KEYS = IntStream.range(0, 100000)
+    .mapToObj(i -> UUID.randomUUID().toString())
+    .toList();
+
+  private static List<String> members(int count) {
+    return IntStream.range(0, count).mapToObj(i -> "/aggregate/node-" + i).toList();
+  }
+
+  private static List<String> reversed(List<String> members) {
+    final var reversed = new ArrayList<>(members);
+    Collections.reverse(reversed);
+    return reversed;
+  }
+
+  @Test
+  void emptyTable() {
+    final var table = RoutingTable.empty(RoutingTableTest.class);
+    assertTrue(table.isEmpty());
+    assertNull(table.locate("any"));
+  }
+
+  @Test
+  void lookupsAreStableAndBalanced() {
+    final var members = members(10);
+    final var table = RoutingTable.build(RoutingTableTest.class, 1, members, 256);
+    final var sameTable = RoutingTable.build(RoutingTableTest.class, 2, reversed(members), 256);
+    final var hits = new HashMap<String, Integer>();
+    KEYS.forEach(key -> {
+        final var address = table.locate(key);
+        assertEquals(address, sameTable.locate(key));
+        hits.merge(address, 1, Integer::sum);
+      }
+    );
+    assertEquals(members.size(), hits.size());
+    final var expected = KEYS.size() / members.size();
+    hits.values().forEach(count -> assertTrue(Math.abs(count - expected) < expected * 0.3, "unbalanced " + hits));
+  }
+
+  @Test
+  void addingMemberOnlyMovesItsShare() {
+    final var before = RoutingTable.build(RoutingTableTest.class, 1, members(10), 256);
+    final var after = RoutingTable.build(RoutingTableTest.class, 2, members(11), 256);
+    final var moved = KEYS.stream().filter(key -> !before.locate(key).equals(after.locate(key))).toList();
+    moved.forEach(key -> assertEquals("/aggregate/node-10", after.locate(key)));
+    assertTrue(moved.size() < KEYS.size() / 11 * 1.3);
+  }
+
+}
@@ -30,6 +30,13 @@ public interface Aggregate extends Shareable, Serializable {
     return Optional.empty();
   }
 
+  /**
+   * Lets the cache weigh the aggregate without encoding it, when empty the encoded size is measured now and then.
+   */
+  default Optional<Integer> sizeInBytes() {
+    return Optional.empty();
+  }
+
   default Aggregate transformSnapshot(int schemaVersion, JsonObject snapshot) {
     throw new UnknownEvent(new EventxError(
       io.vertx.eventx.common.ErrorSource.LOGIC,
@@ -17,5 +17,16 @@ public interface EventProjection {
     return "default";
   }
 
+  /**
+   * Splits the journal by aggregate id, each partition has its own offset and is drained independently,
+   * possibly on another node. Events of an aggregate always land in the same partition and keep their order.
+   * <p>
+   * The number of partitions can be changed on a running projection, the new partitions start from the lowest offset
+   * the previous ones reached. Events between that offset and the offset of their previous partition are applied again.
+   */
+  default int partitions() {
+    return 1;
+  }
+
 
 }
@@ -0,0 +1,15 @@
+package io.vertx.eventx;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Upgrades snapshots written with an older schema of the aggregate, the stored json is handed over as is
+ * so the old shape never has to bind to the current class.
+ */
+public interface SnapshotTransformer<T extends Aggregate> {
+
+  int currentSchemaVersion();
+
+  T transformFrom(int schemaVersion, JsonObject snapshot);
+
+}
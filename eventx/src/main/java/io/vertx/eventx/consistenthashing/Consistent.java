@@ -32,61 +32,83 @@ import io.vertx.eventx.consistenthashing.exceptions.MemberNotFoundException;
 import io.vertx.eventx.consistenthashing.member.Member;
 
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Consistent hashing with bounded loads.
+ * <p>
+ * Membership changes take the write lock, lookups the read lock. Loads are atomic counters
+ * so they can be incremented and decremented from any thread while lookups are in progress.
+ */
 public class Consistent {
     private final Config config;
-    private final SortedMap<Long, Member> hashRing;
-    private final HashSet<String> members;
-    private final HashMap<Member, Integer> loads;
-    private int totalLoad;
+    private final NavigableMap<Long, Member> hashRing;
+    private final Set<String> members;
+    private final Map<Member, AtomicInteger> loads;
+    private final AtomicInteger totalLoad = new AtomicInteger(0);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public Consistent(Config c) {
         this.config = c;
         this.members = new HashSet<>();
-        this.loads = new HashMap<>();
+        this.loads = new ConcurrentHashMap<>();
         this.hashRing = new TreeMap<>();
     }
 
     public void addMember(Member m) throws MemberAlreadyAddedException {
-        if (members.contains(m.name())) {
-            throw new MemberAlreadyAddedException();
-        }
+        lock.writeLock().lock();
+        try {
+            if (members.contains(m.name())) {
+                throw new MemberAlreadyAddedException();
+            }
 
-        for (int i = 0; i < config.getReplicaCount(); i++) {
-            String replica = String.format("%s-%d", m.name(), i);
-            long rkey = config.getHash64().hash64(replica);
-            hashRing.put(rkey, m);
-        }
+            for (int i = 0; i < config.getReplicaCount(); i++) {
+                String replica = String.format("%s-%d", m.name(), i);
+                long rkey = config.getHash64().hash64(replica);
+                hashRing.put(rkey, m);
+            }
 
-        members.add(m.name());
-        loads.put(m, 0);
+            members.add(m.name());
+            loads.put(m, new AtomicInteger(0));
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void removeMember(Member m) {
-        if (!members.contains(m.name())) {
-            return;
-        }
+        lock.writeLock().lock();
+        try {
+            if (!members.contains(m.name())) {
+                return;
+            }
 
-        for (int i = 0; i < config.getReplicaCount(); i++) {
-            String replica = String.format("%s-%d", m.name(), i);
-            long rkey = config.getHash64().hash64(replica);
-            hashRing.remove(rkey, m);
-        }
+            for (int i = 0; i < config.getReplicaCount(); i++) {
+                String replica = String.format("%s-%d", m.name(), i);
+                long rkey = config.getHash64().hash64(replica);
+                hashRing.remove(rkey, m);
+            }
 
-        long load = loads.get(m);
-        totalLoad -= load;
-        loads.remove(m);
-        members.remove(m.name());
+            AtomicInteger load = loads.remove(m);
+            if (load != null) {
+                totalLoad.addAndGet(-load.getAndSet(0));
+            }
+            members.remove(m.name());
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public double averageLoad() {
-        int numMembers = members.size();
+        int numMembers = loads.size();
 
         if (numMembers == 0) {
             return 0;
         }
 
-        double avgPerNode = (double) totalLoad / numMembers;
+        double avgPerNode = (double) totalLoad.get() / numMembers;
         if (avgPerNode == 0) {
             avgPerNode = 1;
         }
@@ -95,56 +117,85 @@ public class Consistent {
         return Math.ceil(avgLoad);
     }
 
+    /**
+     * Walks the ring clockwise from the key, wrapping around, and returns the first member under the load bound.
+     * If every member is over the bound, which can happen while loads are moving concurrently,
+     * the least loaded member is returned instead.
+     */
     public Member locate(String key) {
-        if (this.hashRing.size() == 0) {
-           throw new EmptyHashRingException();
-        }
-
         long hkey = config.getHash64().hash64(key);
-        SortedMap<Long, Member> result = hashRing.tailMap(hkey);
-        if (result.size() == 0) {
-            result = hashRing.headMap(hkey);
-        }
-
-        double avgLoad = averageLoad();
+        lock.readLock().lock();
+        try {
+            if (this.hashRing.isEmpty()) {
+                throw new EmptyHashRingException();
+            }
 
-        for (Long fkey : result.keySet()) {
-            Member m = hashRing.get(fkey);
-            Integer load = loads.get(m);
-            if ((double) load + 1 <= avgLoad) {
-                return m;
+            double avgLoad = averageLoad();
+            Member leastLoaded = null;
+            int leastLoad = Integer.MAX_VALUE;
+            for (Map<Long, Member> part : List.of(hashRing.tailMap(hkey, true), hashRing.headMap(hkey, false))) {
+                for (Member m : part.values()) {
+                    int load = load(m);
+                    if ((double) load + 1 <= avgLoad) {
+                        return m;
+                    }
+                    if (load < leastLoad) {
+                        leastLoad = load;
+                        leastLoaded = m;
+                    }
+                }
             }
+            return leastLoaded;
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        throw new RuntimeException();
+    /**
+     * @return the member the key hashes to whatever the loads, the one bounded lookups start from.
+     */
+    public Member owner(String key) {
+        long hkey = config.getHash64().hash64(key);
+        lock.readLock().lock();
+        try {
+            if (this.hashRing.isEmpty()) {
+                throw new EmptyHashRingException();
+            }
+            Map.Entry<Long, Member> entry = hashRing.ceilingEntry(hkey);
+            return entry != null ? entry.getValue() : hashRing.firstEntry().getValue();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public void incrLoad(Member m) {
-        Integer load = loads.get(m);
+        AtomicInteger load = loads.get(m);
         if (load == null) {
             throw new MemberNotFoundException();
         }
 
-        loads.put(m, load + 1);
-        totalLoad++;
+        load.incrementAndGet();
+        totalLoad.incrementAndGet();
     }
 
     public void decrLoad(Member m) {
-        Integer load = loads.get(m);
+        AtomicInteger load = loads.get(m);
         if (load == null) {
             throw new MemberNotFoundException();
         }
 
-        if (load == 0) {
-            return;
+        if (load.getAndUpdate(current -> current == 0 ? 0 : current - 1) > 0) {
+            totalLoad.decrementAndGet();
         }
-
-        loads.put(m, load - 1);
-        totalLoad--;
     }
 
     public int size() {
-        return hashRing.size() / config.getReplicaCount();
+        lock.readLock().lock();
+        try {
+            return hashRing.size() / config.getReplicaCount();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public Collection<Member> members() {
@@ -152,10 +203,16 @@ public class Consistent {
     }
 
     public Integer getLoad(Member m) {
-        return loads.get(m);
+        AtomicInteger load = loads.get(m);
+        return load == null ? null : load.get();
     }
 
     public Config config() {
       return config;
     }
+
+    private int load(Member m) {
+        AtomicInteger load = loads.get(m);
+        return load == null ? 0 : load.get();
+    }
 }
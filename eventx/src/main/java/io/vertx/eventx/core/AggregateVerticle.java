@@ -6,13 +6,19 @@ import io.smallrye.mutiny.tuples.Tuple2;
 import io.vertx.eventx.exceptions.EventxException;
 import io.vertx.eventx.infrastructure.Infrastructure;
 import io.vertx.eventx.infrastructure.bus.AggregateBus;
+import io.vertx.eventx.infrastructure.bus.BinaryCodec;
+import io.vertx.eventx.infrastructure.bus.RoutingMode;
 import io.vertx.eventx.objects.*;
 import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
 import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.eventbus.Message;
 import io.vertx.eventx.Command;
 import io.vertx.eventx.Behaviour;
 import io.vertx.eventx.Aggregate;
 import io.vertx.eventx.Aggregator;
+import io.vertx.eventx.SnapshotTransformer;
+import io.vertx.eventx.StateProjection;
+import io.vertx.eventx.infrastructure.misc.SnapshotSchemas;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.vertx.core.AbstractVerticle;
 import io.vertx.core.impl.logging.Logger;
@@ -63,40 +69,97 @@ public class AggregateVerticle<T extends Aggregate> extends AbstractVerticle {
     final var injector = startInjector();
     this.aggregatorWrappers = loadAggregators(injector, aggregateClass);
     this.behaviourWrappers = loadBehaviours(injector, aggregateClass);
+    BinaryCodec.allow(aggregateClass);
+    behaviourWrappers.forEach(behaviour -> BinaryCodec.allow(behaviour.commandClass()));
+    registerSnapshotTransformer(injector, aggregateClass);
     this.infrastructure = injector.getInstance(Infrastructure.class);
     this.logic = new AggregateVerticleLogic<>(
       aggregateClass,
       aggregatorWrappers,
       behaviourWrappers,
+      loadStateProjections(injector, aggregateClass),
       aggregateConfiguration,
       infrastructure
     );
     return AggregateBus.registerCommandConsumer(
-      vertx,
-      aggregateClass,
-      this.deploymentID(),
-      jsonMessage -> {
-        LOGGER.info("Incoming command " + jsonMessage.body().encodePrettily());
-        final var responseUni = switch (Action.valueOf(jsonMessage.headers().get(ACTION))) {
-          case LOAD -> logic.loadAggregate(jsonMessage.body().mapTo(AggregatePlainKey.class));
-          case COMMAND -> logic.process(jsonMessage.headers().get(CLASS_NAME), jsonMessage.body());
-        };
-        responseUni.subscribe()
-          .with(
-            jsonMessage::reply,
-            throwable -> {
-              if (throwable instanceof EventxException vertxServiceException) {
-                jsonMessage.fail(vertxServiceException.error().externalErrorCode(), JsonObject.mapFrom(vertxServiceException.error()).encodePrettily());
-              } else {
-                LOGGER.error("Unexpected exception raised -> " + jsonMessage.body(), throwable);
-                jsonMessage.fail(500, JsonObject.mapFrom(new EventxError(throwable.getMessage(), throwable.getLocalizedMessage(), 500)).encode());
-              }
-            }
-          );
-      }
+        vertx,
+        aggregateClass,
+        this.deploymentID(),
+        message -> {
+          final Uni<Object> responseUni = switch (Action.valueOf(message.headers().get(ACTION))) {
+            case LOAD -> logic.loadAggregate(((JsonObject) message.body()).mapTo(AggregatePlainKey.class))
+              .map(state -> state);
+            case CATCH_UP -> catchUp((JsonObject) message.body())
+              .map(avoid -> null);
+            case COMMAND -> Uni.createFrom().item(() -> command(message))
+              .flatMap(command -> submit(command))
+              .map(state -> AggregateBus.isBinary(message) ? state : logic.toJson(state));
+          };
+          responseUni.subscribe()
+            .with(
+              response -> AggregateBus.reply(message, response),
+              throwable -> fail(message, throwable)
+            );
+        }
+      )
+      .flatMap(avoid -> AggregateBus.registerLocalCommandConsumer(
+          vertx,
+          aggregateClass,
+          this.deploymentID(),
+          commandMessage -> submit(commandMessage.body())
+            .subscribe()
+            .with(
+              state -> AggregateBus.replyLocal(commandMessage, state),
+              throwable -> fail(commandMessage, throwable)
+            )
+        )
+      );
+  }
+
+  private Uni<Void> catchUp(JsonObject body) {
+    return logic.catchUp(
+      new AggregatePlainKey(body.getString("aggregateClass"), body.getString("aggregateId"), body.getString("tenantId")),
+      body.getLong("journalOffset")
     );
   }
 
+  private Command command(Message<Object> message) {
+    if (message.body() instanceof Command command) {
+      return command;
+    }
+    return logic.parseCommand(message.headers().get(CLASS_NAME), (JsonObject) message.body());
+  }
+
+  private static void fail(Message<?> message, Throwable throwable) {
+    if (throwable instanceof EventxException vertxServiceException) {
+      message.fail(vertxServiceException.error().externalErrorCode(), JsonObject.mapFrom(vertxServiceException.error()).encode());
+    } else {
+      LOGGER.error("Unexpected exception raised -> " + message.body(), throwable);
+      message.fail(500, JsonObject.mapFrom(new EventxError(throwable.getMessage(), throwable.getLocalizedMessage(), 500)).encode());
+    }
+  }
+
+  /**
+   * A command spilled here by bounded load routing invalidates the state the owner caches once it went through,
+   * loads served by the owner may lag behind it until the invalidation arrives.
+   */
+  private Uni<T> submit(Command command) {
+    final var key = new AggregatePlainKey(aggregateClass.getName(), command.aggregateId(), command.headers().tenantId());
+    return CommandMailbox.submit(key, command, k -> new CommandMailbox<>(
+          logic,
+          k,
+          context,
+          aggregateConfiguration.maxCommandBatchSize()
+        )
+      )
+      .invoke(avoid -> {
+          if (AggregateBus.ROUTING_MODE == RoutingMode.BOUNDED_LOAD && !AggregateBus.ownedLocally(aggregateClass, command.aggregateId())) {
+            AggregateBus.invalidate(vertx, aggregateClass, key);
+          }
+        }
+      );
+  }
+
   private Injector startInjector() {
     moduleBuilder.bind(Vertx.class).toInstance(vertx);
     moduleBuilder.bind(JsonObject.class).toInstance(config());
@@ -123,6 +186,35 @@ public class AggregateVerticle<T extends Aggregate> extends AbstractVerticle {
     return behaviours;
   }
 
+  public static <T extends Aggregate> void registerSnapshotTransformer(final Injector injector, Class<T> entityAggregateClass) {
+    CustomClassLoader.loadFromInjector(injector, SnapshotTransformer.class).stream()
+      .filter(transformer -> CustomClassLoader.getFirstGenericType(transformer).equals(entityAggregateClass))
+      .findFirst()
+      .ifPresent(transformer -> {
+          LOGGER.info(new JsonObject()
+            .put("snapshotTransformer", transformer.getClass().getName())
+            .put("schemaVersion", transformer.currentSchemaVersion())
+            .encodePrettily()
+          );
+          SnapshotSchemas.register(entityAggregateClass, (SnapshotTransformer<T>) transformer);
+        }
+      );
+  }
+
+  public static <T extends Aggregate> List<StateProjectionWrapper<T>> loadStateProjections(final Injector injector, Class<T> entityAggregateClass) {
+    final var stateProjections = CustomClassLoader.loadFromInjector(injector, StateProjection.class).stream()
+      .filter(stateProjection -> CustomClassLoader.getFirstGenericType(stateProjection).isAssignableFrom(entityAggregateClass))
+      .map(stateProjection -> new StateProjectionWrapper<T>(stateProjection, entityAggregateClass))
+      .toList();
+    stateProjections.forEach(stateProjection -> LOGGER.info(
+      new JsonObject()
+        .put("stateProjection", stateProjection.stateProjection().getClass().getName())
+        .put("tenantId", stateProjection.stateProjection().tenantID())
+        .encodePrettily()
+    ));
+    return stateProjections;
+  }
+
   public static <T extends Aggregate> List<AggregatorWrapper> loadAggregators(final Injector injector, Class<T> entityAggregateClass) {
     final var aggregators = CustomClassLoader.loadFromInjector(injector, Aggregator.class).stream()
       .map(aggregator -> {
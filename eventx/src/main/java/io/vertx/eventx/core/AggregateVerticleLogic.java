@@ -1,13 +1,20 @@
 package io.vertx.eventx.core;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.tuples.Tuple4;
-import io.vertx.core.json.JsonArray;
 import io.vertx.eventx.Aggregate;
 import io.vertx.eventx.Command;
 import io.vertx.eventx.infrastructure.Infrastructure;
+import io.vertx.eventx.infrastructure.bus.AggregateBus;
+import io.vertx.eventx.infrastructure.misc.AggregateMetrics;
+import io.vertx.eventx.infrastructure.misc.AggregateTracer;
 import io.vertx.eventx.infrastructure.misc.EventParser;
+import io.vertx.eventx.infrastructure.misc.SnapshotSchemas;
+import io.vertx.eventx.infrastructure.misc.TypeRegistry;
 import io.vertx.eventx.infrastructure.models.*;
 import io.vertx.eventx.exceptions.CommandRejected;
+import io.vertx.eventx.exceptions.EventxException;
+import io.vertx.eventx.exceptions.NodeUnavailable;
 import io.vertx.eventx.exceptions.UnknownCommand;
 import io.vertx.eventx.exceptions.UnknownEvent;
 import io.vertx.eventx.objects.*;
@@ -16,19 +23,22 @@ import io.smallrye.mutiny.Uni;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
-import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 public class AggregateVerticleLogic<T extends Aggregate> {
-  private final List<BehaviourWrapper> behaviours;
-  private final List<AggregatorWrapper> aggregators;
+  private final DispatchTable<BehaviourWrapper> behaviours;
+  private final DispatchTable<AggregatorWrapper> aggregators;
   private final Infrastructure infrastructure;
   private static final Logger LOGGER = LoggerFactory.getLogger(AggregateVerticleLogic.class);
   private final AggregateConfiguration configuration;
   private final Class<T> aggregateClass;
   private final Map<String, String> commandClassMap = new HashMap<>();
+  private final AggregateMetrics metrics;
+  private final AggregateTracer tracer;
+  private final List<StateProjectionWrapper<T>> stateProjections;
 
   public AggregateVerticleLogic(
     final Class<T> aggregateClass,
@@ -36,12 +46,26 @@ public class AggregateVerticleLogic<T extends Aggregate> {
     final List<BehaviourWrapper> behaviours,
     final AggregateConfiguration configuration,
     final Infrastructure infrastructure
+  ) {
+    this(aggregateClass, aggregators, behaviours, List.of(), configuration, infrastructure);
+  }
+
+  public AggregateVerticleLogic(
+    final Class<T> aggregateClass,
+    final List<AggregatorWrapper> aggregators,
+    final List<BehaviourWrapper> behaviours,
+    final List<StateProjectionWrapper<T>> stateProjections,
+    final AggregateConfiguration configuration,
+    final Infrastructure infrastructure
   ) {
     this.infrastructure = infrastructure;
+    this.stateProjections = stateProjections;
     this.aggregateClass = aggregateClass;
-    this.aggregators = aggregators;
-    this.behaviours = behaviours;
+    this.aggregators = DispatchTable.aggregators(aggregators);
+    this.behaviours = DispatchTable.behaviours(behaviours);
     this.configuration = configuration;
+    this.metrics = AggregateMetrics.of(aggregateClass);
+    this.tracer = AggregateTracer.of(aggregateClass);
     if (behaviours.isEmpty()) {
       throw new IllegalStateException("Empty behaviours");
     }
@@ -70,246 +94,377 @@ public class AggregateVerticleLogic<T extends Aggregate> {
   }
 
   public Uni<JsonObject> loadAggregate(AggregatePlainKey aggregateRecordKey) {
-    LOGGER.debug("Loading aggregate locally  -> " + aggregateRecordKey);
+    if (tracer.sampled()) {
+      tracer.trace("Loading aggregate locally -> " + aggregateRecordKey);
+    }
+    if (foreign(aggregateRecordKey.aggregateId())) {
+      return loadForeignAggregate(aggregateRecordKey.aggregateId(), aggregateRecordKey.tenantId())
+        .map(aggregateState -> toJson(aggregateState.state()))
+        .invoke(avoid -> tracer.summarize());
+    }
     return loadAggregate(aggregateRecordKey.aggregateId(), aggregateRecordKey.tenantId())
-      .map(JsonObject::mapFrom);
+      .flatMap(this::project)
+      .map(aggregateState -> toJson(aggregateState.state()))
+      .invoke(avoid -> tracer.summarize());
   }
 
-  public Uni<JsonObject> process(String commandClass, JsonObject jsonCommand) {
-    LOGGER.debug("Processing " + commandClass + " -> " + jsonCommand.encodePrettily());
-    final var command = parseCommand(commandClass, jsonCommand);
-    return loadAggregate(command.aggregateId(), command.headers().tenantId())
-      .flatMap(aggregateState -> processCommand(aggregateState, command)
-        .onFailure(Conflict.class)
-        .recoverWithUni(
-          () -> playFromLastJournalOffset(aggregateState)
-            .flatMap(reconstructedState -> processCommand(reconstructedState, command))
+  /**
+   * Catch-up from the state projection poller, the cached state answers when it was already projected up to the offset
+   * so only the aggregates this node doesn't hold are replayed.
+   * The catch-up fails when the aggregate is foreign or its projection still fails, the poller then retries the batch.
+   */
+  public Uni<Void> catchUp(AggregatePlainKey aggregateRecordKey, long journalOffset) {
+    if (foreign(aggregateRecordKey.aggregateId())) {
+      return Uni.createFrom().failure(new NodeUnavailable(aggregateRecordKey.aggregateId()));
+    }
+    final var state = infrastructure.cache() == null ? null : infrastructure.cache().get(new AggregateKey<>(aggregateClass, aggregateRecordKey.aggregateId(), aggregateRecordKey.tenantId()));
+    if (state != null && state.projectedOffset() != null && state.projectedOffset() >= journalOffset) {
+      return Uni.createFrom().voidItem();
+    }
+    return loadAggregate(aggregateRecordKey.aggregateId(), aggregateRecordKey.tenantId())
+      .flatMap(this::project)
+      .invoke(projectedState -> {
+          if (!projectedState.projected()) {
+            throw new IllegalStateException("Unable to project " + aggregateRecordKey.aggregateId() + " up to " + journalOffset);
+          }
+        }
+      )
+      .replaceWithVoid();
+  }
+
+  /**
+   * Processes commands that target the same aggregate, in order, against the in-memory state and appends
+   * the events they produce with a single append.
+   * A rejected command only fails its own outcome, the cached state is replaced by an updated copy once the append succeeds.
+   */
+  public Uni<List<CommandOutcome<T>>> process(final String aggregateId, final String tenant, final List<Command> commands) {
+    return loadAggregate(aggregateId, tenant)
+      .flatMap(aggregateState -> journaledCommands(aggregateState, aggregateId, tenant, commands)
+        .flatMap(journaledCommands -> processCommands(aggregateState, aggregateId, tenant, commands, journaledCommands)
+          .onFailure(Conflict.class).invoke(() -> metrics.tenant(tenant).conflictRetries().increment())
+          .onFailure(Conflict.class)
+          .recoverWithUni(
+            () -> playFromLastJournalOffset(aggregateState, aggregateId, tenant)
+              .map(this::cacheState)
+              .flatMap(reconstructedState -> processCommands(reconstructedState, aggregateId, tenant, commands, journaledCommands))
+          )
         )
-        .onFailure().invoke(throwable -> logRejectedCommand(throwable, command))
       )
-      .map(JsonObject::mapFrom);
+      .invoke(avoid -> tracer.summarize());
   }
 
-  private T aggregateEvent(T aggregateState, final io.vertx.eventx.Event event) {
-    AggregatorWrapper wrapper;
-    io.vertx.eventx.Event finalEvent = event;
-    wrapper = tenantAggregator(event);
-    if (wrapper == null) {
-      wrapper = defaultAggregator(event);
+  /**
+   * Looks up in the journal the command ids of the batch that missed the idempotency window, only when the window
+   * may have lost ids, either because it overflowed or because the state came from a snapshot.
+   */
+  private Uni<Set<String>> journaledCommands(AggregateState<T> state, String aggregateId, String tenant, List<Command> commands) {
+    if (Boolean.FALSE.equals(configuration.durableIdempotency()) || state.knowsAllCommands()) {
+      return Uni.createFrom().item(Set.of());
     }
-    LOGGER.info("Applying behaviour -> " + wrapper.delegate().getClass().getSimpleName());
-    if (wrapper.delegate().currentSchemaVersion() != event.schemaVersion()) {
-      finalEvent = wrapper.delegate().transformFrom(event.schemaVersion(), JsonObject.mapFrom(event));
+    final var misses = commands.stream()
+      .map(command -> command.headers().commandID())
+      .filter(commandId -> commandId != null && !state.knownCommands().contains(commandId))
+      .collect(Collectors.toSet());
+    if (misses.isEmpty()) {
+      return Uni.createFrom().item(Set.of());
     }
-    return (T) wrapper.delegate().apply(aggregateState, finalEvent);
+    return infrastructure.eventStore().knownCommands(new AggregateKey<>(aggregateClass, aggregateId, tenant), misses);
   }
 
-  private AggregatorWrapper defaultAggregator(io.vertx.eventx.Event event) {
-    return aggregators.stream()
-      .filter(behaviour -> Objects.equals(behaviour.delegate().tenantId(), "default"))
-      .filter(aggregator -> aggregator.eventClass().getName().equals(event.getClass().getName()))
-      .findFirst()
-      .orElseThrow(() -> UnknownEvent.unknown(event.getClass()));
+  public JsonObject toJson(T state) {
+    return state == null ? null : TypeRegistry.resolve(aggregateClass).write(state);
   }
 
-  @Nullable
-  private AggregatorWrapper tenantAggregator(io.vertx.eventx.Event event) {
-    return aggregators.stream()
-      .filter(behaviour -> !Objects.equals(behaviour.delegate().tenantId(), "default"))
-      .filter(aggregator -> aggregator.eventClass().getName().equals(event.getClass().getName()))
-      .findFirst()
-      .orElse(null);
+  private T aggregateEvent(T aggregateState, final io.vertx.eventx.Event event, final String tenant) {
+    final var wrapper = aggregators.resolve(event.getClass(), tenant);
+    if (wrapper == null) {
+      throw UnknownEvent.unknown(event.getClass());
+    }
+    io.vertx.eventx.Event finalEvent = event;
+    if (wrapper.delegate().currentSchemaVersion() != event.schemaVersion()) {
+      finalEvent = wrapper.delegate().transformFrom(event.schemaVersion(), JsonObject.mapFrom(event));
+    }
+    return (T) wrapper.delegate().apply(aggregateState, finalEvent);
   }
 
   private List<io.vertx.eventx.Event> applyBehaviour(final T aggregateState, final Command command) {
-    final var customBehaviour = behaviours.stream()
-      .filter(behaviour -> !Objects.equals(behaviour.delegate().tenantID(), "default"))
-      .filter(behaviour -> behaviour.commandClass().getName().equals(command.getClass().getName()))
-      .findFirst()
-      .orElse(null);
-    if (customBehaviour == null) {
-      final var defaultBehaviour = behaviours.stream()
-        .filter(behaviour -> Objects.equals(behaviour.delegate().tenantID(), "default"))
-        .filter(behaviour -> behaviour.commandClass().getName().equals(command.getClass().getName()))
-        .findFirst()
-        .orElseThrow(() -> UnknownCommand.unknown(command.getClass()));
-      LOGGER.info("Applying command Behaviour -> " + defaultBehaviour.getClass().getSimpleName());
-      return defaultBehaviour.process(aggregateState, command);
+    final var behaviour = behaviours.resolve(command.getClass(), command.headers().tenantId());
+    if (behaviour == null) {
+      throw UnknownCommand.unknown(command.getClass());
+    }
+    if (tracer.sampled()) {
+      tracer.trace("Applying " + behaviour.delegate().getClass().getSimpleName() + " to " + command.aggregateId());
     }
-    LOGGER.info("Applying command behaviour -> " + customBehaviour.getClass().getSimpleName());
-    return customBehaviour.process(aggregateState, command);
+    return behaviour.process(aggregateState, command);
   }
 
   private Uni<AggregateState<T>> loadAggregate(String aggregateId, String tenant) {
-    LOGGER.debug("Loading aggregateId[" + aggregateId + "::" + tenant + "]");
-    AggregateState<T> state = null;
-    if (infrastructure.cache() != null) {
-      state = infrastructure.cache().get(new AggregateKey<>(aggregateClass, aggregateId, tenant));
+    final var tenantMeters = metrics.tenant(tenant);
+    if (infrastructure.cache() == null) {
+      tenantMeters.cacheMiss().increment();
+      return replay(aggregateId, tenant);
     }
-    if (state == null) {
-      return playFromLastJournalOffset(new AggregateState<>(aggregateClass));
-    } else {
+    final var key = new AggregateKey<>(aggregateClass, aggregateId, tenant);
+    final var state = infrastructure.cache().get(key);
+    if (state != null) {
+      tenantMeters.cacheHit().increment();
       return Uni.createFrom().item(state);
     }
+    tenantMeters.cacheMiss().increment();
+    return infrastructure.cache().get(key, () -> replay(aggregateId, tenant).map(this::cacheState));
   }
 
-  private Uni<AggregateState<T>> playFromLastJournalOffset(AggregateState<T> state) {
-    LOGGER.debug("Playing from last journal offset");
-    return infrastructure.eventStore().stream(
-        streamInstruction(state),
-        infraEvent -> applyEvent(state, infraEvent)
-      )
-      .map(avoid -> cacheState(state));
+  /**
+   * Hedged loads can land on a node that doesn't own the aggregate, the state it replays is served but not cached
+   * so it can't go stale there, and projections are left to the owner.
+   */
+  private Uni<AggregateState<T>> loadForeignAggregate(String aggregateId, String tenant) {
+    final var state = infrastructure.cache() == null ? null : infrastructure.cache().get(new AggregateKey<>(aggregateClass, aggregateId, tenant));
+    return state != null ? Uni.createFrom().item(state) : replay(aggregateId, tenant);
   }
 
-  private AggregateEventStream<T> streamInstruction(AggregateState<T> state) {
-    return new AggregateEventStream<>(
-      state.aggregateClass(),
-      state.state().aggregateId(),
-      state.state().tenantID(),
-      state.currentVersion(),
-      state.snapshotOffset()
-    );
+  /**
+   * With bounded load routing the owner is the home of the aggregate on the ring, the nodes loads spill to are foreign.
+   */
+  private boolean foreign(String aggregateId) {
+    return !AggregateBus.routingTable(aggregateClass).isEmpty()
+      && !AggregateBus.ownedLocally(aggregateClass, aggregateId);
   }
 
-  private void aggregateEvents(final AggregateState<T> state, final List<Event> events) {
-    events.stream()
-      .sorted(Comparator.comparingLong(Event::eventVersion))
-      .forEachOrdered(event -> {
-          LOGGER.info("Aggregating event -> " + event.eventClass());
-          final var parsedEvent = EventParser.getEvent(event.eventClass(), event.event());
-          final var isSnapshot = parsedEvent.getClass().isAssignableFrom(SnapshotEvent.class);
-          if (isSnapshot) {
-            applySnapshot(state, event, parsedEvent);
-          } else {
-            applyEvent(state, event, parsedEvent);
-          }
-          state
-            .addKnownCommand(event.commandId())
-            .setCurrentVersion(event.eventVersion());
-        }
-      );
-
+  private Uni<AggregateState<T>> replay(String aggregateId, String tenant) {
+    final var start = AggregateMetrics.start();
+    return loadSnapshot(aggregateId, tenant)
+      .flatMap(snapshot -> playFromLastJournalOffset(snapshot, aggregateId, tenant))
+      .invoke(avoid -> AggregateMetrics.stop(metrics.tenant(tenant).replay(), start));
   }
 
-  private void applyEvent(AggregateState<T> state, Event event, io.vertx.eventx.Event parsedEvent) {
-    final var newState = aggregateEvent(state.state(), parsedEvent);
-    LOGGER.info("New aggregate state -> " + newState);
-    if (state.knownCommands().stream().noneMatch(txId -> txId.equals(event.commandId()))) {
-      state.knownCommands().add(event.commandId());
+  private Uni<AggregateState<T>> loadSnapshot(String aggregateId, String tenant) {
+    if (infrastructure.snapshotStore() == null || Boolean.FALSE.equals(configuration.snapshots())) {
+      return Uni.createFrom().item(new AggregateState<>(aggregateClass, configuration.maxNumberOfCommandsForIdempotency()));
     }
-    state.setState(newState);
+    return infrastructure.snapshotStore().get(new AggregateKey<>(aggregateClass, aggregateId, tenant))
+      .map(snapshot -> snapshot != null
+        ? snapshot.setIdempotencyWindow(configuration.maxNumberOfCommandsForIdempotency())
+        : new AggregateState<>(aggregateClass, configuration.maxNumberOfCommandsForIdempotency())
+      );
   }
 
-  private void applySnapshot(AggregateState<T> state, Event event, io.vertx.eventx.Event parsedEvent) {
-    LOGGER.debug("Applying snapshot " + JsonObject.mapFrom(event).encodePrettily());
-    if (parsedEvent.schemaVersion() != state.state().schemaVersion()) {
-      state.setState(state.aggregateClass().cast(state.state().transformSnapshot(parsedEvent.schemaVersion(), event.event())));
-    } else {
-      state.setState(JsonObject.mapFrom(((SnapshotEvent) parsedEvent).state()).mapTo(state.aggregateClass()));
-    }
-    state.setSnapshotOffset(event.journalOffset());
+  private Uni<AggregateState<T>> playFromLastJournalOffset(AggregateState<T> fromState, String aggregateId, String tenant) {
+    tracer.replayed();
+    final var state = fromState.copy();
+    final var replayed = new AtomicInteger(0);
+    return infrastructure.eventStore().stream(
+        streamInstruction(aggregateId, tenant, state),
+        infraEvent -> {
+          applyEvent(state, infraEvent);
+          replayed.incrementAndGet();
+        }
+      )
+      .invoke(avoid -> {
+          metrics.tenant(tenant).replayEvents().record(replayed.get());
+          if (tracer.sampled()) {
+            tracer.trace("Replayed " + replayed.get() + " events for " + aggregateId + "::" + tenant + " from version " + state.currentVersion());
+          }
+        }
+      )
+      .map(avoid -> state);
+  }
+
+  private AggregateEventStream<T> streamInstruction(String aggregateId, String tenant, AggregateState<T> state) {
+    return new AggregateEventStream<>(
+      state.aggregateClass(),
+      aggregateId,
+      tenant,
+      state.currentVersion(),
+      state.snapshotOffset()
+    );
   }
 
   private void applyEvent(final AggregateState<T> state, final Event event) {
-    LOGGER.info("Aggregating event -> " + event.eventClass());
     final var parsedEvent = EventParser.getEvent(event.eventClass(), event.event());
-    final var newState = aggregateEvent(state.state(), parsedEvent);
-    LOGGER.info("New aggregate state -> " + newState);
-    if (state.knownCommands().stream().noneMatch(txId -> txId.equals(event.commandId()))) {
-      state.knownCommands().add(event.commandId());
+    if (parsedEvent instanceof SnapshotEvent snapshotEvent) {
+      applySnapshot(state, event, snapshotEvent);
+    } else {
+      state.setState(aggregateEvent(state.state(), parsedEvent, event.tenantId()));
     }
-    final var isSnapshot = parsedEvent.getClass().isAssignableFrom(SnapshotEvent.class);
-    state.setState(newState)
-      .setSnapshotOffset(isSnapshot ? event.journalOffset() : state.snapshotOffset())
+    tracer.eventApplied();
+    state
       .addKnownCommand(event.commandId())
-      .setCurrentVersion(event.eventVersion());
+      .setCurrentVersion(event.eventVersion())
+      .setJournalOffset(event.journalOffset());
   }
 
-  private List<Event> applyBehaviour(final AggregateState<T> state, final Command finalCommand) {
-    final var currentVersion = state.currentVersion() == null ? 0 : state.currentVersion();
-    final var events = applyBehaviour(state.state(), finalCommand);
-    if (LOGGER.isDebugEnabled()) {
-      LOGGER.debug("Events created -> " + new JsonArray(events).encodePrettily());
+  private void applySnapshot(AggregateState<T> state, Event event, SnapshotEvent snapshotEvent) {
+    if (tracer.sampled()) {
+      tracer.trace("Applying snapshot at offset " + event.journalOffset() + " to " + event.aggregateId());
     }
-    final var array = events.toArray(new io.vertx.eventx.Event[0]);
-    final var resultingEvents = transformEvents(state, finalCommand, currentVersion, array);
-    addOptionalSnapshot(state, finalCommand, resultingEvents);
-    return resultingEvents;
+    state.setState(SnapshotSchemas.read(state.aggregateClass(), event.schemaVersion(), new JsonObject(snapshotEvent.state())))
+      .addKnownCommands(snapshotEvent.knownCommands())
+      .setSnapshotOffset(event.journalOffset());
   }
 
-  private ArrayList<Event> transformEvents(AggregateState<T> state, Command finalCommand, long currentVersion, io.vertx.eventx.Event[] array) {
-    return new ArrayList<>(IntStream.range(1, array.length + 1)
-      .mapToObj(index -> {
-          final var ev = array[index - 1];
-          final var eventVersion = currentVersion + index;
-          state.setCurrentVersion(eventVersion);
-          return new Event(
-            aggregateClass.getName(),
-            finalCommand.aggregateId(),
-            ev.getClass().getName(),
-            eventVersion,
-            JsonObject.mapFrom(ev),
-            finalCommand.headers().tenantId(),
-            finalCommand.headers().commandID(),
-            ev.tags(),
-            ev.schemaVersion()
-          );
-        }
-      ).toList()
-    );
+  private List<Event> transformEvents(Command command, long currentVersion, List<io.vertx.eventx.Event> events) {
+    final var transformedEvents = new ArrayList<Event>(events.size());
+    for (int i = 0; i < events.size(); i++) {
+      final var ev = events.get(i);
+      transformedEvents.add(new Event(
+          aggregateClass.getName(),
+          command.aggregateId(),
+          ev.getClass().getName(),
+          currentVersion + i + 1,
+          TypeRegistry.resolve(ev.getClass()).write(ev),
+          command.headers().tenantId(),
+          command.headers().commandID(),
+          ev.tags(),
+          ev.schemaVersion()
+        )
+      );
+    }
+    return transformedEvents;
   }
 
-  private void addOptionalSnapshot(AggregateState<T> state, Command finalCommand, ArrayList<Event> resultingEvents) {
-    state.state().snapshotEvery().ifPresent(
-      snapshotEvery -> {
-        final var snapshot = snapshotEvery <= Math.floorMod(state.currentVersion(), snapshotEvery);
-        if (snapshot) {
-          LOGGER.debug("Appending a snapshot to the stream");
-          state.setCurrentVersion(state.currentVersion() + 1);
-          resultingEvents.add(new Event(
-              aggregateClass.getName(),
-              finalCommand.aggregateId(),
-              SnapshotEvent.class.getName(),
-              state.currentVersion(),
-              JsonObject.mapFrom(new SnapshotEvent(
-                  JsonObject.mapFrom(state.state()).getMap(),
-                  state.knownCommands().stream().toList(),
-                  state.snapshotOffset(),
-                  state.currentVersion()
-                )
-              ),
-              finalCommand.headers().tenantId(),
-              finalCommand.headers().commandID(),
-              List.of("eventx-snapshot"),
-              state.state().schemaVersion()
-            )
-          );
+  private Uni<List<CommandOutcome<T>>> processCommands(
+    final AggregateState<T> state,
+    final String aggregateId,
+    final String tenant,
+    final List<Command> commands,
+    final Set<String> journaledCommands
+  ) {
+    final var outcomes = new ArrayList<CommandOutcome<T>>(commands.size());
+    final var events = new ArrayList<Event>();
+    final var commandIds = new ArrayList<String>(commands.size());
+    final long previousVersion = state.currentVersion() == null ? 0L : state.currentVersion();
+    T currentState = state.state();
+    long currentVersion = previousVersion;
+    for (final var command : commands) {
+      final var commandMeters = metrics.command(command.getClass(), command.headers().tenantId());
+      final var start = AggregateMetrics.start();
+      try {
+        checkCommandId(state, commandIds, journaledCommands, command);
+        final var domainEvents = applyBehaviour(currentState, command);
+        T newState = currentState;
+        for (final var domainEvent : domainEvents) {
+          newState = aggregateEvent(newState, domainEvent, command.headers().tenantId());
         }
+        if (!domainEvents.isEmpty()) {
+          events.addAll(transformEvents(command, currentVersion, domainEvents));
+          commandIds.add(command.headers().commandID());
+          currentVersion += domainEvents.size();
+        }
+        currentState = newState;
+        outcomes.add(CommandOutcome.accepted(newState));
+        AggregateMetrics.stop(commandMeters.behaviour(), start);
+      } catch (Exception exception) {
+        commandMeters.rejected().increment();
+        tracer.commandRejected();
+        logRejectedCommand(exception, command);
+        outcomes.add(CommandOutcome.rejected(exception));
       }
-    );
+    }
+    tracer.commandsProcessed(commands.size());
+    if (events.isEmpty()) {
+      return Uni.createFrom().item(outcomes);
+    }
+    final var newState = currentState;
+    final var newVersion = currentVersion;
+    final var appendStart = AggregateMetrics.start();
+    return appendEvents(aggregateId, tenant, events)
+      .onTermination().invoke(() -> AggregateMetrics.stop(metrics.tenant(tenant).append(), appendStart))
+      .flatMap(appendedEvents -> {
+          final var appendedState = state.copy()
+            .setState(newState)
+            .setCurrentVersion(newVersion)
+            .setJournalOffset(appendedEvents.get(appendedEvents.size() - 1).journalOffset())
+            .addKnownCommands(commandIds);
+          cacheState(appendedState);
+          snapshot(appendedState, previousVersion);
+          return project(appendedState).replaceWith((List<CommandOutcome<T>>) outcomes);
+        }
+      )
+      .onFailure(throwable -> !(throwable instanceof Conflict))
+      .recoverWithItem(throwable -> outcomes.stream()
+        .map(outcome -> outcome.isRejected() ? outcome : CommandOutcome.<T>rejected(throwable))
+        .toList()
+      );
+  }
+
+  /**
+   * Hands a copy of the state to the snapshot store whenever the aggregate crosses a snapshotEvery boundary,
+   * the store takes care of serializing and writing it outside the command path.
+   */
+  private void snapshot(AggregateState<T> state, long previousVersion) {
+    if (infrastructure.snapshotStore() == null || Boolean.FALSE.equals(configuration.snapshots())) {
+      return;
+    }
+    final long snapshotEvery = state.state().snapshotEvery().orElse(configuration.snapshotEvery());
+    if (snapshotEvery <= 0 || previousVersion / snapshotEvery == state.currentVersion() / snapshotEvery) {
+      return;
+    }
+    infrastructure.snapshotStore().add(state.copy())
+      .subscribe().with(
+        avoid -> {
+          if (tracer.sampled()) {
+            tracer.trace("Snapshot queued for " + state.state().aggregateId());
+          }
+        },
+        throwable -> LOGGER.error("Unable to snapshot " + state.state().aggregateId(), throwable)
+      );
   }
 
+  /**
+   * Hands the in-memory state to the state projections of the aggregate, the batch waits for them so that
+   * an aggregate's projections are always updated in journal order.
+   * A failing projection doesn't fail the commands, the state stays behind and the catch-up poller wakes it up later.
+   * The projected offset is handed to the offset store without waiting for it, so that the poller can tell the aggregate
+   * is up to date without asking its owner.
+   */
+  private Uni<AggregateState<T>> project(AggregateState<T> state) {
+    if (stateProjections.isEmpty() || state.state() == null || state.projected()) {
+      return Uni.createFrom().item(state);
+    }
+    final var journalOffset = state.journalOffset();
+    return Multi.createFrom().iterable(stateProjections)
+      .onItem().transformToUniAndMerge(stateProjection -> stateProjection.update(state.state()))
+      .collect().last()
+      .map(avoid -> state.setProjectedOffset(journalOffset))
+      .invoke(this::persistProjectedOffset)
+      .onFailure().invoke(throwable -> LOGGER.error("Unable to project " + state.state().aggregateId() + " at " + journalOffset, throwable))
+      .onFailure().recoverWithItem(state);
+  }
 
-  private <C extends Command> Uni<AggregateState<T>> processCommand(final AggregateState<T> state, final C command) {
-    checkCommandId(state, command);
-    final var events = applyBehaviour(state, command);
-    aggregateEvents(state, events);
-    return appendEvents(state, events).map(avoid -> cacheState(state));
+  private void persistProjectedOffset(AggregateState<T> state) {
+    if (infrastructure.offsetStore() == null) {
+      return;
+    }
+    infrastructure.offsetStore().put(new JournalOffset(
+          StateProjectionPoller.projectedConsumer(aggregateClass, state.state().aggregateId()),
+          state.state().tenantID(),
+          state.projectedOffset(),
+          null
+        )
+      )
+      .subscribe()
+      .with(
+        avoid -> {
+        },
+        throwable -> LOGGER.warn("Unable to persist projected offset of " + state.state().aggregateId(), throwable)
+      );
   }
 
-  private <C extends Command> void checkCommandId(AggregateState<T> state, C command) {
-    if (state.knownCommands() != null && !state.knownCommands().isEmpty()) {
-      state.knownCommands().stream().filter(txId -> txId.equals(command.headers().commandID()))
-        .findAny()
-        .ifPresent(duplicatedCommand -> {
-            throw new CommandRejected(new EventxError("Command was already processed", "commandId was marked as known by the aggregate", 400));
-          }
-        );
+  private void checkCommandId(AggregateState<T> state, List<String> batchCommandIds, Set<String> journaledCommands, Command command) {
+    final var commandId = command.headers().commandID();
+    if (state.knownCommands().contains(commandId) || batchCommandIds.contains(commandId) || journaledCommands.contains(commandId)) {
+      throw new CommandRejected(new EventxError("Command was already processed", "commandId was marked as known by the aggregate", 400));
     }
   }
 
+  /**
+   * Only the owner caches, a copy cached on a node requests merely spilled to would never be told about later changes.
+   */
   private AggregateState<T> cacheState(AggregateState<T> state) {
+    if (state.state() == null || infrastructure.cache() == null || foreign(state.state().aggregateId())) {
+      return state;
+    }
     infrastructure.cache().put(
       new AggregateKey<>(
         aggregateClass,
@@ -320,26 +475,30 @@ public class AggregateVerticleLogic<T extends Aggregate> {
     return state;
   }
 
-  private Uni<Void> appendEvents(AggregateState<T> state, List<Event> events) {
+  private Uni<List<Event>> appendEvents(String aggregateId, String tenant, List<Event> events) {
     return infrastructure.eventStore().append(
       new AppendInstruction<>(
         aggregateClass,
-        state.state().aggregateId(),
-        state.state().tenantID(),
+        aggregateId,
+        tenant,
         events
       )
     );
   }
 
+  // business rejections are expected, only unexpected failures are worth an error per command
   private void logRejectedCommand(final Throwable throwable, final Command command) {
-    LOGGER.error("Command rejected " + JsonObject.mapFrom(command).encodePrettily(), throwable);
+    if (!(throwable instanceof EventxException)) {
+      LOGGER.error("Command " + command.getClass().getSimpleName() + " failed on " + command.aggregateId(), throwable);
+    } else if (tracer.sampled()) {
+      tracer.trace(command.getClass().getSimpleName() + " rejected on " + command.aggregateId(), throwable);
+    }
   }
 
 
-  private Command parseCommand(final String commandType, final JsonObject jsonCommand) {
+  public Command parseCommand(final String commandType, final JsonObject jsonCommand) {
     try {
-      final var clazz = Class.forName(Objects.requireNonNullElse(commandClassMap.get(commandType), commandType));
-      final var object = jsonCommand.mapTo(clazz);
+      final var object = TypeRegistry.resolve(Objects.requireNonNullElse(commandClassMap.get(commandType), commandType)).read(jsonCommand);
       if (object instanceof Command command) {
         return command;
       } else {
@@ -0,0 +1,124 @@
+package io.vertx.eventx.core;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import io.vertx.core.Context;
+import io.vertx.eventx.Aggregate;
+import io.vertx.eventx.Command;
+import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Serializes the commands of a single aggregate, commands queued while a batch is in flight
+ * are processed together as the next batch.
+ * <p>
+ * Mailboxes are node-wide, whichever verticle instance receives a command hands it to the mailbox of the aggregate
+ * which is confined to the context of the instance that created it. A mailbox closes once idle, commands that raced
+ * with the close are dispatched again to a fresh mailbox, so there is never more than one open mailbox per aggregate.
+ */
+public final class CommandMailbox<T extends Aggregate> {
+  private static final Map<AggregatePlainKey, CommandMailbox<?>> MAILBOXES = new ConcurrentHashMap<>();
+  private final AggregateVerticleLogic<T> logic;
+  private final AggregatePlainKey key;
+  private final Context context;
+  private final int maxBatchSize;
+  private final ArrayDeque<PendingCommand<T>> queue = new ArrayDeque<>();
+  private boolean processing = false;
+  private boolean closed = false;
+
+  public CommandMailbox(
+    final AggregateVerticleLogic<T> logic,
+    final AggregatePlainKey key,
+    final Context context,
+    final int maxBatchSize
+  ) {
+    this.logic = logic;
+    this.key = key;
+    this.context = context;
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+  }
+
+  /**
+   * Queues the command in the mailbox of its aggregate, the factory is only called if the aggregate has no open mailbox.
+   */
+  public static <T extends Aggregate> Uni<T> submit(
+    final AggregatePlainKey key,
+    final Command command,
+    final Function<AggregatePlainKey, CommandMailbox<T>> factory
+  ) {
+    return Uni.createFrom().emitter(emitter -> dispatch(key, new PendingCommand<>(command, emitter), factory));
+  }
+
+  private static <T extends Aggregate> void dispatch(
+    final AggregatePlainKey key,
+    final PendingCommand<T> pendingCommand,
+    final Function<AggregatePlainKey, CommandMailbox<T>> factory
+  ) {
+    final var mailbox = (CommandMailbox<T>) MAILBOXES.computeIfAbsent(key, factory);
+    mailbox.context.runOnContext(avoid -> {
+        if (mailbox.closed) {
+          dispatch(key, pendingCommand, factory);
+          return;
+        }
+        mailbox.queue.add(pendingCommand);
+        mailbox.drain();
+      }
+    );
+  }
+
+  private void drain() {
+    if (processing) {
+      return;
+    }
+    if (queue.isEmpty()) {
+      closed = true;
+      MAILBOXES.remove(key, this);
+      return;
+    }
+    processing = true;
+    final var batch = new ArrayList<PendingCommand<T>>(Math.min(queue.size(), maxBatchSize));
+    while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+      batch.add(queue.poll());
+    }
+    logic.process(key.aggregateId(), key.tenantId(), batch.stream().map(PendingCommand::command).toList())
+      .subscribe().with(
+        outcomes -> {
+          complete(batch, outcomes);
+          next();
+        },
+        throwable -> {
+          batch.forEach(pendingCommand -> pendingCommand.emitter().fail(throwable));
+          next();
+        }
+      );
+  }
+
+  private void complete(List<PendingCommand<T>> batch, List<CommandOutcome<T>> outcomes) {
+    for (int i = 0; i < batch.size(); i++) {
+      final var outcome = outcomes.get(i);
+      if (outcome.isRejected()) {
+        batch.get(i).emitter().fail(outcome.failure());
+      } else {
+        batch.get(i).emitter().complete(outcome.state());
+      }
+    }
+  }
+
+  private void next() {
+    processing = false;
+    drain();
+  }
+
+  private record PendingCommand<T>(
+    Command command,
+    UniEmitter<? super T> emitter
+  ) {
+  }
+
+}
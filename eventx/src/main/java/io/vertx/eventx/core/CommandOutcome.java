@@ -0,0 +1,22 @@
+package io.vertx.eventx.core;
+
+import io.vertx.eventx.Aggregate;
+
+public record CommandOutcome<T extends Aggregate>(
+  T state,
+  Throwable failure
+) {
+
+  public static <T extends Aggregate> CommandOutcome<T> accepted(T state) {
+    return new CommandOutcome<>(state, null);
+  }
+
+  public static <T extends Aggregate> CommandOutcome<T> rejected(Throwable failure) {
+    return new CommandOutcome<>(null, failure);
+  }
+
+  public boolean isRejected() {
+    return failure != null;
+  }
+
+}
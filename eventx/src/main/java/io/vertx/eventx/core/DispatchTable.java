@@ -0,0 +1,76 @@
+package io.vertx.eventx.core;
+
+import io.vertx.eventx.objects.AggregatorWrapper;
+import io.vertx.eventx.objects.BehaviourWrapper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Immutable (class, tenant) -> handler index, built once per aggregate.
+ * Tenant specific handlers take precedence over the "default" one.
+ */
+public final class DispatchTable<W> {
+  public static final String DEFAULT_TENANT = "default";
+
+  private final Map<Class<?>, Entry<W>> entries;
+
+  private DispatchTable(Map<Class<?>, Entry<W>> entries) {
+    this.entries = Map.copyOf(entries);
+  }
+
+  public static DispatchTable<BehaviourWrapper> behaviours(List<BehaviourWrapper> behaviours) {
+    return build(behaviours, BehaviourWrapper::commandClass, wrapper -> wrapper.delegate().tenantID());
+  }
+
+  public static DispatchTable<AggregatorWrapper> aggregators(List<AggregatorWrapper> aggregators) {
+    return build(aggregators, AggregatorWrapper::eventClass, wrapper -> wrapper.delegate().tenantId());
+  }
+
+  private static <W> DispatchTable<W> build(List<W> wrappers, Function<W, Class<?>> type, Function<W, String> tenant) {
+    final var defaults = new HashMap<Class<?>, W>();
+    final var tenants = new HashMap<Class<?>, Map<String, W>>();
+    wrappers.forEach(wrapper -> {
+        final var wrapperTenant = Objects.requireNonNullElse(tenant.apply(wrapper), DEFAULT_TENANT);
+        if (DEFAULT_TENANT.equals(wrapperTenant)) {
+          defaults.putIfAbsent(type.apply(wrapper), wrapper);
+        } else {
+          tenants.computeIfAbsent(type.apply(wrapper), k -> new HashMap<>()).putIfAbsent(wrapperTenant, wrapper);
+        }
+      }
+    );
+    final var entries = new HashMap<Class<?>, Entry<W>>();
+    defaults.keySet().forEach(k -> entries.put(k, null));
+    tenants.keySet().forEach(k -> entries.put(k, null));
+    entries.replaceAll((k, v) -> new Entry<>(defaults.get(k), Map.copyOf(tenants.getOrDefault(k, Map.of()))));
+    return new DispatchTable<>(entries);
+  }
+
+  /**
+   * @return the handler registered for the tenant, falling back to the default one, or null if none matches.
+   */
+  public W resolve(Class<?> type, String tenant) {
+    final var entry = entries.get(type);
+    if (entry == null) {
+      return null;
+    }
+    if (!entry.tenants().isEmpty() && tenant != null) {
+      final var tenantWrapper = entry.tenants().get(tenant);
+      if (tenantWrapper != null) {
+        return tenantWrapper;
+      }
+    }
+    return entry.defaultWrapper();
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  private record Entry<W>(W defaultWrapper, Map<String, W> tenants) {
+  }
+
+}
@@ -2,6 +2,8 @@ package io.vertx.eventx.core;
 
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.Context;
+import io.vertx.core.impl.VertxInternal;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.eventx.Event;
@@ -10,54 +12,208 @@ import io.vertx.eventx.infrastructure.EventStore;
 import io.vertx.eventx.infrastructure.OffsetStore;
 import io.vertx.eventx.infrastructure.misc.EventParser;
 import io.vertx.eventx.infrastructure.models.EventStream;
+import io.vertx.eventx.objects.EventJournalFilter;
+import io.vertx.eventx.objects.JournalOffset;
 import io.vertx.eventx.objects.JournalOffsetKey;
 import io.vertx.eventx.sql.exceptions.NotFound;
 import io.vertx.eventx.task.LockLevel;
 import io.vertx.eventx.task.TimerTask;
 import io.vertx.eventx.task.TimerTaskConfiguration;
+import io.vertx.eventx.task.TimerTaskDeployer;
+import io.vertx.mutiny.core.Vertx;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 
+/**
+ * Projections are woken up by the journal notifications and drain it page by page until they caught up.
+ * Polling only takes over while the store can't push appends.
+ * <p>
+ * Every node runs the poller, a projection partition is drained by whichever node holds its cluster lock,
+ * on an event loop of its own so that the partitions of a node catching up spread over its cores.
+ * <p>
+ * Partition offsets are stored under {@code consumer#partition/partitions}, the consumer key itself holds the offset of
+ * an unpartitioned projection and, once partitioned, the lowest offset of its partitions, kept up to date by the holder
+ * of the first partition. Changing the number of partitions starts the new partitions from that lowest offset, the
+ * events a partition of the previous layout had already applied past it are applied again, never the whole journal.
+ */
 public class EventProjectionPoller implements TimerTask {
 
   private static final Logger logger = LoggerFactory.getLogger(EventProjectionPoller.class);
+  public static final int PROJECTION_BATCH_SIZE = Integer.parseInt(System.getenv().getOrDefault("PROJECTION_BATCH_SIZE", "1000"));
+  // a cursor holds its transaction open, so it's closed after this many batches and reopened from the stored offset
+  public static final int PROJECTION_BATCHES_PER_CURSOR = Integer.parseInt(System.getenv().getOrDefault("PROJECTION_BATCHES_PER_CURSOR", "10"));
+  public static final long PROJECTION_FALLBACK_POLLING_IN_MS = Long.parseLong(System.getenv().getOrDefault("PROJECTION_FALLBACK_POLLING_IN_MS", "5000"));
+  // stays within the cursor pool so partitions wait for a free drain slot rather than for a connection
+  public static final int PROJECTION_DRAIN_CONCURRENCY = Integer.parseInt(System.getenv().getOrDefault("PROJECTION_DRAIN_CONCURRENCY", "2"));
+  public static final long PROJECTION_LOCK_TIMEOUT_IN_MS = Long.parseLong(System.getenv().getOrDefault("PROJECTION_LOCK_TIMEOUT_IN_MS", "100"));
+  private static final EventJournalFilter NO_FILTER = new EventJournalFilter(null, null, null);
+  private final Vertx vertx;
   private final List<EventProjection> eventProjections;
   private final EventStore eventStore;
   private final OffsetStore offsetStore;
+  private final Map<String, Context> workers = new ConcurrentHashMap<>();
+  private final AtomicBoolean subscribed = new AtomicBoolean(false);
+  private final AtomicLong drainedTo = new AtomicLong(-1);
 
-  public EventProjectionPoller(List<EventProjection> eventProjections, EventStore eventStore, OffsetStore offsetStore) {
+  public EventProjectionPoller(Vertx vertx, List<EventProjection> eventProjections, EventStore eventStore, OffsetStore offsetStore) {
+    this.vertx = vertx;
     this.eventProjections = eventProjections;
     this.eventStore = eventStore;
     this.offsetStore = offsetStore;
   }
 
 
-  //
   @Override
   public Uni<Void> performTask() {
+    subscribe();
     return Multi.createFrom().iterable(eventProjections)
-      .onItem().transformToUniAndMerge(eventProjection -> offsetStore.get(new JournalOffsetKey(eventProjection.getClass().getName(), eventProjection.tenantID()))
-        .flatMap(journalOffset -> eventStore.fetch(new EventStream(
-                eventProjection.filter().aggregates(),
-                eventProjection.filter().events(),
-                null,
-                eventProjection.filter().tags(),
-                eventProjection.tenantID(),
-                journalOffset.idOffSet(),
-                1000
-              )
-            )
-            .flatMap(
-              events -> eventProjection.apply(parseEvents(events))
-                .flatMap(avoid -> offsetStore.put(journalOffset.updateOffset(events)))
-            )
+      .onItem().transformToIterable(ProjectionPartition::of)
+      .onItem().transformToUni(this::drainPartition).merge(PROJECTION_DRAIN_CONCURRENCY)
+      .collect().asList()
+      .invoke(journalOffsets -> drainedTo.set(journalOffsets.stream()
+          .filter(Objects::nonNull)
+          .mapToLong(JournalOffset::idOffSet)
+          .min()
+          // partitions all held elsewhere, any append could be ours once they are released
+          .orElse(-1L)
         )
       )
+      .replaceWithVoid();
+  }
+
+  /**
+   * @return the offset reached, or null if another node holds the partition.
+   */
+  private Uni<JournalOffset> drainPartition(ProjectionPartition partition) {
+    return vertx.sharedData().getLockWithTimeout(partition.name(), PROJECTION_LOCK_TIMEOUT_IN_MS)
+      .onFailure().invoke(throwable -> logger.debug(partition.name() + " held elsewhere"))
+      .onFailure().recoverWithNull()
+      .flatMap(lock -> {
+          if (lock == null) {
+            return Uni.createFrom().nullItem();
+          }
+          return onWorker(partition.name(), () -> startingOffset(partition)
+            .flatMap(journalOffset -> drain(partition, journalOffset))
+            .call(journalOffset -> partition.partition() == 0 && partition.partitions() > 1 ? storeLowestOffset(partition.eventProjection()) : Uni.createFrom().voidItem())
+            // the next holder of the lock may be another node, it has to find the offset reached even if the drain failed
+            .onTermination().call((journalOffset, throwable, cancelled) -> flush(partition))
+          )
+            .onTermination().invoke(lock::release);
+        }
+      );
+  }
+
+  /**
+   * A partition never starts behind the lowest offset of the projection, a partition new to this layout starts from it.
+   */
+  private Uni<JournalOffset> startingOffset(ProjectionPartition partition) {
+    if (partition.partitions() == 1) {
+      return offsetStore.get(partition.offsetKey());
+    }
+    return Uni.combine().all().unis(offsetStore.get(partition.offsetKey()), offsetStore.get(partition.consumerKey()))
+      .asTuple()
+      .map(offsets -> idOffset(offsets.getItem1()) >= idOffset(offsets.getItem2())
+        ? offsets.getItem1()
+        : new JournalOffset(partition.name(), partition.eventProjection().tenantID(), idOffset(offsets.getItem2()), null)
+      );
+  }
+
+  private Uni<Void> storeLowestOffset(EventProjection eventProjection) {
+    return Multi.createFrom().iterable(ProjectionPartition.of(eventProjection))
+      .onItem().transformToUniAndMerge(partition -> offsetStore.get(partition.offsetKey()))
       .collect().asList()
+      .flatMap(journalOffsets -> {
+          final var lowestOffset = journalOffsets.stream().mapToLong(EventProjectionPoller::idOffset).min().orElse(0L);
+          return offsetStore.put(new JournalOffset(eventProjection.getClass().getName(), eventProjection.tenantID(), lowestOffset, null));
+        }
+      )
       .replaceWithVoid();
   }
 
+  private Uni<Void> flush(ProjectionPartition partition) {
+    if (partition.partition() == 0 && partition.partitions() > 1) {
+      return offsetStore.flush(partition.offsetKey())
+        .flatMap(avoid -> offsetStore.flush(partition.consumerKey()));
+    }
+    return offsetStore.flush(partition.offsetKey());
+  }
+
+  private static long idOffset(JournalOffset journalOffset) {
+    return Objects.requireNonNullElse(journalOffset.idOffSet(), 0L);
+  }
+
+  /**
+   * Streams the partition from its offset, events are handed to the projection one batch at a time
+   * and the next batch is only read once the previous one is applied and its offset stored.
+   * <p>
+   * A cursor is read for {@link #PROJECTION_BATCHES_PER_CURSOR} batches at most, the drain then opens a new one
+   * from the offset reached and goes on until a cursor runs out of events.
+   */
+  private Uni<JournalOffset> drain(ProjectionPartition partition, JournalOffset journalOffset) {
+    final var eventProjection = partition.eventProjection();
+    final var filter = Objects.requireNonNullElse(eventProjection.filter(), NO_FILTER);
+    final var drained = new AtomicLong();
+    return eventStore.stream(new EventStream(
+          filter.aggregates(),
+          filter.events(),
+          null,
+          filter.tags(),
+          eventProjection.tenantID(),
+          journalOffset.idOffSet(),
+          PROJECTION_BATCH_SIZE,
+          partition.partition(),
+          partition.partitions()
+        )
+      )
+      .select().first(cursorBudget())
+      .group().intoLists().of(PROJECTION_BATCH_SIZE)
+      .onItem().transformToUniAndConcatenate(events -> eventProjection.apply(parseEvents(events))
+        .invoke(avoid -> drained.addAndGet(events.size()))
+        .flatMap(avoid -> offsetStore.put(journalOffset.updateOffset(events)))
+      )
+      .collect().last()
+      .onItem().ifNull().continueWith(journalOffset)
+      .flatMap(reached -> drained.get() < cursorBudget() ? Uni.createFrom().item(reached) : drain(partition, reached));
+  }
+
+  /**
+   * @return the number of events read from a cursor before it's closed.
+   */
+  public static long cursorBudget() {
+    return (long) PROJECTION_BATCHES_PER_CURSOR * PROJECTION_BATCH_SIZE;
+  }
+
+  private <T> Uni<T> onWorker(String name, Supplier<Uni<T>> supplier) {
+    final var worker = workers.computeIfAbsent(name, key -> ((VertxInternal) vertx.getDelegate()).createEventLoopContext());
+    return Uni.createFrom().emitter(emitter -> worker.runOnContext(avoid -> supplier.get()
+        .subscribe().with(emitter::complete, emitter::fail)
+      )
+    );
+  }
+
+  private void subscribe() {
+    if (subscribed.compareAndSet(false, true)) {
+      eventStore.subscribe(journalOffset -> {
+            if (journalOffset == null || journalOffset > drainedTo.get()) {
+              TimerTaskDeployer.wakeUp(this);
+            }
+          }
+        )
+        .subscribe().with(
+          avoid -> logger.info("Event projections subscribed to the journal"),
+          throwable -> logger.warn("Unable to subscribe to the journal, polling every " + PROJECTION_FALLBACK_POLLING_IN_MS + "ms", throwable)
+        );
+    }
+  }
+
 
   private List<Event> parseEvents(List<io.vertx.eventx.infrastructure.models.Event> events) {
     return events.stream()
@@ -65,11 +221,14 @@ public class EventProjectionPoller implements TimerTask {
       .toList();
   }
 
+  /**
+   * Partitions are locked cluster wide one by one, the poller itself runs on every node.
+   */
   @Override
   public TimerTaskConfiguration configuration() {
     return new TimerTaskConfiguration(
-      LockLevel.CLUSTER_WIDE,
-      100_000L,
+      LockLevel.NONE,
+      eventStore.subscribed() ? 100_000L : PROJECTION_FALLBACK_POLLING_IN_MS,
       100_000L,
       10L,
       10L,
@@ -77,5 +236,28 @@ public class EventProjectionPoller implements TimerTask {
     );
   }
 
+  private record ProjectionPartition(EventProjection eventProjection, int partition, int partitions) {
+
+    static List<ProjectionPartition> of(EventProjection eventProjection) {
+      final var partitions = Math.max(1, eventProjection.partitions());
+      return IntStream.range(0, partitions)
+        .mapToObj(partition -> new ProjectionPartition(eventProjection, partition, partitions))
+        .toList();
+    }
+
+    String name() {
+      final var consumer = eventProjection.getClass().getName();
+      return partitions == 1 ? consumer : consumer + "#" + partition + "/" + partitions;
+    }
+
+    JournalOffsetKey consumerKey() {
+      return new JournalOffsetKey(eventProjection.getClass().getName(), eventProjection.tenantID());
+    }
+
+    JournalOffsetKey offsetKey() {
+      return new JournalOffsetKey(name(), eventProjection.tenantID());
+    }
+  }
+
 
 }
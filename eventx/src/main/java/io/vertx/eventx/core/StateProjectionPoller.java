@@ -2,78 +2,164 @@ package io.vertx.eventx.core;
 
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.tuples.Tuple2;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
+import io.vertx.eventx.infrastructure.AggregateCache;
 import io.vertx.eventx.infrastructure.EventStore;
 import io.vertx.eventx.infrastructure.OffsetStore;
+import io.vertx.eventx.infrastructure.models.AggregateKey;
 import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
+import io.vertx.eventx.infrastructure.models.Event;
 import io.vertx.eventx.infrastructure.models.EventStream;
 import io.vertx.eventx.infrastructure.proxies.AggregateEventBusClient;
+import io.vertx.eventx.objects.JournalOffset;
 import io.vertx.eventx.objects.JournalOffsetKey;
 import io.vertx.eventx.objects.StateProjectionWrapper;
+import io.vertx.eventx.sql.exceptions.NotFound;
+import io.vertx.eventx.task.LockLevel;
 import io.vertx.eventx.task.TimerTaskConfiguration;
 import io.vertx.eventx.Aggregate;
 import io.vertx.eventx.task.TimerTask;
+
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static java.util.stream.Collectors.groupingBy;
+import static io.vertx.eventx.core.EventProjectionPoller.PROJECTION_BATCH_SIZE;
+import static io.vertx.eventx.core.EventProjectionPoller.cursorBudget;
+import static java.util.stream.Collectors.toMap;
 
+/**
+ * State projections are fed by the aggregate verticles right after an append, with the state they hold in memory.
+ * <p>
+ * The poller is the durable catch-up for the updates that didn't make it, a failing projection or a node that went
+ * down between the append and the projection. It follows the journal from its offset, an aggregate counts as projected
+ * when the local cache or the projected offset its owner persisted after projecting is past its last event.
+ * Only the others are sent a catch-up, the owner answers from its own cache and only loads and projects the aggregates
+ * it doesn't hold or that are behind.
+ * <p>
+ * A failing catch-up fails the batch, the offset isn't stored and the next run starts over from the same events.
+ */
 public class StateProjectionPoller<T extends Aggregate> implements TimerTask {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(StateProjectionPoller.class);
+  public static final long STATE_PROJECTION_CATCH_UP_IN_MS = Long.parseLong(System.getenv().getOrDefault("STATE_PROJECTION_CATCH_UP_IN_MS", "60000"));
   private final List<StateProjectionWrapper<T>> stateProjectionWrappers;
   private final AggregateEventBusClient<T> proxy;
   private final EventStore eventStore;
   private final OffsetStore offsetStore;
-  Class<T> aggregateClass;
+  private final AggregateCache cache;
+  private final Class<T> aggregateClass;
 
   public StateProjectionPoller(
     List<StateProjectionWrapper<T>> stateProjectionWrappers,
     AggregateEventBusClient<T> proxy,
     EventStore eventStore,
-    OffsetStore offsetStore
+    OffsetStore offsetStore,
+    AggregateCache cache
   ) {
     this.stateProjectionWrappers = stateProjectionWrappers;
     this.proxy = proxy;
     this.eventStore = eventStore;
     this.offsetStore = offsetStore;
+    this.cache = cache;
+    this.aggregateClass = proxy.aggregateClass;
   }
 
   @Override
   public Uni<Void> performTask() {
-    return offsetStore.get(new JournalOffsetKey("state-projection", "default"))
-      .flatMap(journalOffset -> eventStore.fetch(new EventStream(
-              List.of(aggregateClass),
-              null,
-              null,
-              null,
-              null,
-              journalOffset.idOffSet(),
-              1000
-            )
-          )
-          .flatMap(events -> {
-              final var aggregateIds = events.stream()
-                .collect(groupingBy(event -> Tuple2.of(event.aggregateId(),event.tenantId())))
-                .keySet();
-              return Multi.createFrom().iterable(aggregateIds)
-                .onItem().transformToUniAndMerge(tuple2 -> proxy.wakeUp(new AggregatePlainKey(aggregateClass.getName(), tuple2.getItem1(), tuple2.getItem2()))
-                  .flatMap(state -> Multi.createFrom().iterable(stateProjectionWrappers)
-                    .onItem().transformToUniAndMerge(stateProjection -> stateProjection.update(state))
-                    .collect().asList()
-                  )
-                )
-                .collect().asList();
-            }
-          )
-          .replaceWithVoid()
+    if (stateProjectionWrappers.isEmpty()) {
+      return Uni.createFrom().voidItem();
+    }
+    final var offsetKey = new JournalOffsetKey(name(), "default");
+    return offsetStore.get(offsetKey)
+      .flatMap(this::drain)
+      // the cluster lock may go to another node next
+      .onTermination().call((journalOffset, throwable, cancelled) -> offsetStore.flush(offsetKey))
+      .replaceWithVoid();
+  }
+
+  /**
+   * Reads a bounded number of batches per cursor, like the event projections, and reopens one until caught up.
+   */
+  private Uni<JournalOffset> drain(JournalOffset journalOffset) {
+    final var drained = new AtomicLong();
+    return eventStore.stream(new EventStream(
+          List.of(aggregateClass),
+          null,
+          null,
+          null,
+          null,
+          journalOffset.idOffSet(),
+          PROJECTION_BATCH_SIZE
+        )
+      )
+      .select().first(cursorBudget())
+      .group().intoLists().of(PROJECTION_BATCH_SIZE)
+      .onItem().transformToUniAndConcatenate(events -> Multi.createFrom().iterable(behind(events).entrySet())
+        .onItem().transformToUniAndMerge(entry -> persistedOffset(entry.getKey())
+          .flatMap(projectedOffset -> projectedOffset >= entry.getValue() ? Uni.createFrom().voidItem() : proxy.catchUp(entry.getKey(), entry.getValue()))
+          .onFailure().invoke(throwable -> LOGGER.warn("Unable to catch up " + entry.getKey(), throwable))
+        )
+        .collect().asList()
+        .invoke(avoid -> drained.addAndGet(events.size()))
+        .flatMap(avoid -> offsetStore.put(journalOffset.updateOffset(events)))
+      )
+      .collect().last()
+      .onItem().ifNull().continueWith(journalOffset)
+      .flatMap(reached -> drained.get() < cursorBudget() ? Uni.createFrom().item(reached) : drain(reached));
+  }
+
+  /**
+   * @return the aggregates touched by the events whose cached state wasn't projected up to their last event, with that event's offset.
+   */
+  private Map<AggregatePlainKey, Long> behind(List<Event> events) {
+    final Map<AggregatePlainKey, Long> lastOffsets = events.stream()
+      .collect(toMap(
+          event -> new AggregatePlainKey(aggregateClass.getName(), event.aggregateId(), event.tenantId()),
+          Event::journalOffset,
+          Math::max
+        )
       );
+    return lastOffsets.entrySet().stream()
+      .filter(entry -> {
+          if (cache == null) {
+            return true;
+          }
+          final var state = cache.get(new AggregateKey<>(aggregateClass, entry.getKey().aggregateId(), entry.getKey().tenantId()));
+          return state == null || state.projectedOffset() == null || state.projectedOffset() < entry.getValue();
+        }
+      )
+      .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
+  private Uni<Long> persistedOffset(AggregatePlainKey key) {
+    return offsetStore.get(new JournalOffsetKey(projectedConsumer(aggregateClass, key.aggregateId()), key.tenantId()))
+      .map(offset -> offset.idOffSet() == null ? -1L : offset.idOffSet());
+  }
+
+  /**
+   * @return the consumer the owner persists the projected offset of an aggregate under.
+   */
+  public static String projectedConsumer(Class<? extends Aggregate> aggregateClass, String aggregateId) {
+    return aggregateClass.getName() + ".projected." + aggregateId;
+  }
+
+  @Override
+  public String name() {
+    return aggregateClass.getName() + ".state-projection";
   }
 
   @Override
   public TimerTaskConfiguration configuration() {
-    return TimerTask.super.configuration();
+    return new TimerTaskConfiguration(
+      LockLevel.CLUSTER_WIDE,
+      STATE_PROJECTION_CATCH_UP_IN_MS,
+      100_000L,
+      10L,
+      10L,
+      List.of(NotFound.class)
+    );
   }
 
 }
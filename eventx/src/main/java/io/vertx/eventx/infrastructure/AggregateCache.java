@@ -5,10 +5,32 @@ import io.vertx.eventx.Aggregate;
 import io.vertx.eventx.infrastructure.models.AggregateKey;
 import io.vertx.eventx.objects.AggregateState;
 
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
 public interface AggregateCache {
   <T extends Aggregate> AggregateState<T> get(AggregateKey<T> aggregateKey);
 
+  /**
+   * Returns the cached state or loads it, implementations may share one load between concurrent misses of the same key.
+   * The loader is expected to cache the state it produces.
+   */
+  default <T extends Aggregate> Uni<AggregateState<T>> get(AggregateKey<T> aggregateKey, Supplier<Uni<AggregateState<T>>> loader) {
+    final var state = get(aggregateKey);
+    return state != null ? Uni.createFrom().item(state) : loader.get();
+  }
+
   <T extends Aggregate> void put(AggregateKey<T> aggregateKey, AggregateState<T> aggregate);
+  default <T extends Aggregate> void invalidate(AggregateKey<T> aggregateKey) {
+    invalidateIf(aggregateKey.aggregateClass(), key -> key.equals(aggregateKey));
+  }
+
+  /**
+   * Drops the cached states matching the predicate, used to let go of aggregates this node no longer owns.
+   */
+  default <T extends Aggregate> void invalidateIf(Class<T> aggregateClass, Predicate<AggregateKey<T>> predicate) {
+  }
+
   default Uni<Void> start() {
     return Uni.createFrom().voidItem();
   }
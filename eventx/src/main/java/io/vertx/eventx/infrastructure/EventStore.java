@@ -1,14 +1,18 @@
 package io.vertx.eventx.infrastructure;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import io.vertx.eventx.Aggregate;
+import io.vertx.eventx.infrastructure.models.AggregateKey;
 import io.vertx.eventx.infrastructure.models.AppendInstruction;
 import io.vertx.eventx.infrastructure.models.Event;
 import io.vertx.eventx.infrastructure.models.AggregateEventStream;
 import io.vertx.eventx.infrastructure.models.EventStream;
 
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 public interface EventStore {
@@ -18,8 +22,40 @@ public interface EventStore {
   Uni<List<Event>> fetch(EventStream eventStream);
   Uni<Void> stream(EventStream eventStream, Consumer<Event> consumer);
 
-  // todo make this return the last eventID so that journal might be used more efficiently from the start.
-  <T extends Aggregate> Uni<Void> append(AppendInstruction<T> appendInstruction);
+  /**
+   * Streams the whole journal after the offset with backpressure, the batch size is the number of events read
+   * from the store at a time. Stores without cursors emit a single page.
+   */
+  default Multi<Event> stream(EventStream eventStream) {
+    return fetch(eventStream).onItem().transformToMulti(events -> Multi.createFrom().iterable(events));
+  }
+
+  /**
+   * @return the appended events, each one carrying the journal offset assigned to it.
+   */
+  <T extends Aggregate> Uni<List<Event>> append(AppendInstruction<T> appendInstruction);
+
+  /**
+   * @return the command ids that already produced events on the aggregate.
+   */
+  <T extends Aggregate> Uni<Set<String>> knownCommands(AggregateKey<T> aggregateKey, Collection<String> commandIds);
+
+  /**
+   * Pushes the highest journal offset of every append to the handler. The handler gets null whenever appends
+   * may have been missed, on subscription and after a reconnection, and should catch up from its own offset.
+   *
+   * @return a failure if the store can't push appends, readers then have to poll.
+   */
+  default Uni<Void> subscribe(Consumer<Long> journalOffsetHandler) {
+    return Uni.createFrom().failure(new UnsupportedOperationException("Journal notifications not supported by " + getClass().getSimpleName()));
+  }
+
+  /**
+   * @return true while appends are being pushed to subscribers.
+   */
+  default boolean subscribed() {
+    return false;
+  }
 
   Uni<Void> close();
   Uni<Void> start();
@@ -2,20 +2,49 @@ package io.vertx.eventx.infrastructure;
 
 import io.smallrye.mutiny.Uni;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public record Infrastructure(
   AggregateCache cache,
   EventStore eventStore,
+  SnapshotStore snapshotStore,
   OffsetStore offsetStore
 ) {
 
   public Uni<Void> stop() {
-    return Uni.join().all(cache.start(), eventStore.close(), offsetStore.close())
+    final List<Uni<Void>> closes = new ArrayList<>();
+    if (cache != null) {
+      closes.add(cache.close());
+    }
+    closes.add(eventStore.close());
+    if (snapshotStore != null) {
+      closes.add(snapshotStore.close());
+    }
+    if (offsetStore != null) {
+      closes.add(offsetStore.close());
+    }
+    return Uni.join().all(closes)
       .usingConcurrencyOf(1).andFailFast()
       .replaceWithVoid();
   }
 
+  /**
+   * Only the event store is mandatory, the cache, snapshot and offset stores may be left out.
+   */
   public Uni<Void> start() {
-    return Uni.join().all(cache.start(), eventStore.start(), offsetStore.start())
+    final List<Uni<Void>> starts = new ArrayList<>();
+    if (cache != null) {
+      starts.add(cache.start());
+    }
+    starts.add(eventStore.start());
+    if (snapshotStore != null) {
+      starts.add(snapshotStore.start());
+    }
+    if (offsetStore != null) {
+      starts.add(offsetStore.start());
+    }
+    return Uni.join().all(starts)
       .usingConcurrencyOf(1).andFailFast()
       .replaceWithVoid();
   }
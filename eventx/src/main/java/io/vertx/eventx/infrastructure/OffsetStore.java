@@ -9,6 +9,13 @@ public interface OffsetStore {
   Uni<JournalOffset> put(JournalOffset journalOffset);
   Uni<JournalOffset> get(JournalOffsetKey journalOffset);
 
+  /**
+   * Writes the offset of the consumer if the store holds it back, consumers call it before handing their lock over.
+   */
+  default Uni<Void> flush(JournalOffsetKey journalOffset) {
+    return Uni.createFrom().voidItem();
+  }
+
   Uni<Void> close();
 
   Uni<Void> start();
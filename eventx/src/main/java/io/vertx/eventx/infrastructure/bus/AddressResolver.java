@@ -20,7 +20,19 @@ public class AddressResolver {
     return "/" + entityClass.getSimpleName().toLowerCase() + "/" + deploymentID;
   }
 
+  public static String localCommandConsumer(String commandConsumer) {
+    return commandConsumer + "/local";
+  }
+
   public static <T extends Aggregate> String commandBridge(Class<T> aggregateClass) {
     return "/" + aggregateClass.getSimpleName().toLowerCase() + "/bridge/command";
   }
+
+  public static <T extends Aggregate> String invalidationChannel(Class<T> aggregateClass) {
+    return "/" + aggregateClass.getSimpleName().toLowerCase() + "/invalidate";
+  }
+
+  public static <T extends Aggregate> String traceChannel(Class<T> aggregateClass) {
+    return "/" + aggregateClass.getSimpleName().toLowerCase() + "/trace";
+  }
 }
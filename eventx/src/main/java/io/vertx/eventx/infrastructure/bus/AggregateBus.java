@@ -1,63 +1,189 @@
 package io.vertx.eventx.infrastructure.bus;
 
 import io.smallrye.mutiny.Multi;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.CompositeException;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.subscription.FixedDemandPacer;
 import io.smallrye.mutiny.unchecked.Unchecked;
 import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.MessageCodec;
 import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.tracing.TracingPolicy;
+import io.vertx.eventx.Command;
 import io.vertx.eventx.common.ErrorSource;
+import io.vertx.eventx.consistenthashing.Consistent;
+import io.vertx.eventx.consistenthashing.config.Config;
+import io.vertx.eventx.consistenthashing.exceptions.EmptyHashRingException;
+import io.vertx.eventx.consistenthashing.exceptions.MemberNotFoundException;
+import io.vertx.eventx.consistenthashing.member.Member;
+import io.vertx.eventx.consistenthashing.member.impl.MemberImpl;
+import io.vertx.eventx.infrastructure.misc.AggregateMetrics;
+import io.vertx.eventx.infrastructure.misc.AggregateTracer;
 import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
 import io.vertx.eventx.exceptions.CommandRejected;
+import io.vertx.eventx.exceptions.EventxException;
 import io.vertx.eventx.exceptions.NodeUnavailable;
 import io.vertx.eventx.exceptions.UnknownCommand;
 import io.vertx.eventx.objects.Action;
+import io.vertx.eventx.objects.AggregateConfiguration;
 import io.vertx.eventx.objects.EventxError;
 import io.vertx.mutiny.core.Vertx;
 import io.vertx.mutiny.core.eventbus.Message;
 import io.vertx.mutiny.core.eventbus.MessageConsumer;
 import io.vertx.eventx.Aggregate;
-import org.ishugaliy.allgood.consistent.hash.HashRing;
-import org.ishugaliy.allgood.consistent.hash.hasher.DefaultHasher;
-import org.ishugaliy.allgood.consistent.hash.node.SimpleNode;
 
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static io.vertx.core.eventbus.ReplyFailure.RECIPIENT_FAILURE;
 import static io.vertx.eventx.infrastructure.bus.AddressResolver.commandConsumer;
+import static io.vertx.eventx.infrastructure.bus.AddressResolver.localCommandConsumer;
 
 public class AggregateBus {
   private AggregateBus() {
   }
 
   public static final String ACTION = "action";
+  public static final String CLASS_NAME = "className";
+  public static final String CODEC = "codec";
+  public static final RoutingMode ROUTING_MODE = RoutingMode.valueOf(System.getenv().getOrDefault("AGGREGATE_BUS_ROUTING", RoutingMode.CONSISTENT.name()));
+  public static final double BOUNDED_LOAD_FACTOR = Double.parseDouble(System.getenv().getOrDefault("AGGREGATE_BUS_LOAD_FACTOR", "1.25"));
   private static final Logger LOGGER = LoggerFactory.getLogger(AggregateBus.class);
 
-  private static HashRing<SimpleNode> startHashRing(Class<? extends Aggregate> aggregateClass) {
-    return HashRing.<SimpleNode>newBuilder()
-      .name(aggregateClass.getName())       // set hash ring name
-      .hasher(DefaultHasher.MURMUR_3)   // hash function to distribute partitions
-      .partitionRate(100000)                  // number of partitions per node
-      .build();
+  private static final Map<Class<? extends Aggregate>, Routing> ROUTING = new ConcurrentHashMap<>();
+  // command consumers deployed in this JVM, commands routed to them skip the wire format
+  private static final Set<String> LOCAL_ACTORS = ConcurrentHashMap.newKeySet();
+  // remote command consumers that advertised the binary codec, any other peer gets json
+  private static final Set<String> BINARY_ACTORS = ConcurrentHashMap.newKeySet();
+  private static final Map<Class<? extends Aggregate>, RequestPolicy> POLICIES = new ConcurrentHashMap<>();
+  private static final Map<Class<? extends Aggregate>, Consumer<RoutingTable>> ROUTING_LISTENERS = new ConcurrentHashMap<>();
+  private static final Map<Class<? extends Aggregate>, Consumer<AggregatePlainKey>> INVALIDATION_LISTENERS = new ConcurrentHashMap<>();
+
+  public static RoutingTable routingTable(Class<? extends Aggregate> aggregateClass) {
+    return routing(aggregateClass).table().get();
+  }
+
+  /**
+   * @return true if the aggregate is owned by one of the actors deployed on this node, according to the current table.
+   */
+  public static boolean ownedLocally(Class<? extends Aggregate> aggregateClass, String aggregateId) {
+    final var address = owner(aggregateClass, aggregateId);
+    return address != null && LOCAL_ACTORS.contains(address);
+  }
+
+  /**
+   * @return the actor the aggregate belongs to, or null if there is none. With bounded load routing that is its home
+   * on the ring whatever the loads, requests spilled to other actors are served there but only the home caches the state.
+   */
+  public static String owner(Class<? extends Aggregate> aggregateClass, String aggregateId) {
+    if (ROUTING_MODE == RoutingMode.BOUNDED_LOAD) {
+      try {
+        return routing(aggregateClass).boundedLoad().owner(aggregateId).name();
+      } catch (EmptyHashRingException emptyHashRing) {
+        return null;
+      }
+    }
+    return routingTable(aggregateClass).locate(aggregateId);
   }
 
-  public static final Map<Class<? extends Aggregate>, HashRing<SimpleNode>> HASH_RING_MAP = new HashMap<>();
+  /**
+   * Registers the node-wide listener notified on a worker thread whenever a new routing table is published for the class,
+   * replaces any previous listener.
+   */
+  public static void onRoutingChange(Class<? extends Aggregate> aggregateClass, Consumer<RoutingTable> listener) {
+    ROUTING_LISTENERS.put(aggregateClass, listener);
+  }
+
+  /**
+   * Registers the node-wide listener told to drop the cached state of an aggregate that changed on another node,
+   * replaces any previous listener.
+   */
+  public static void onInvalidation(Class<? extends Aggregate> aggregateClass, Consumer<AggregatePlainKey> listener) {
+    INVALIDATION_LISTENERS.put(aggregateClass, listener);
+  }
+
+  /**
+   * Tells every node to drop its cached state of the aggregate, sent after a command spilled away from the owner
+   * changed it so that the owner doesn't keep serving the previous state.
+   */
+  public static <T extends Aggregate> void invalidate(Vertx vertx, Class<T> entityClass, AggregatePlainKey key) {
+    vertx.eventBus().publish(
+      AddressResolver.invalidationChannel(entityClass),
+      JsonObject.mapFrom(key),
+      new DeliveryOptions().setLocalOnly(false)
+    );
+  }
+
+  private static Routing routing(Class<? extends Aggregate> aggregateClass) {
+    return ROUTING.computeIfAbsent(aggregateClass, aClass -> new Routing(
+        ConcurrentHashMap.newKeySet(),
+        new AtomicLong(0),
+        new AtomicReference<>(RoutingTable.empty(aClass)),
+        new Consistent(boundedLoadConfig())
+      )
+    );
+  }
+
+  private static Config boundedLoadConfig() {
+    final var config = Config.getConfig();
+    config.setLoadFactor(BOUNDED_LOAD_FACTOR);
+    return config;
+  }
 
   // todo put a pipe in the channel that routes commands from the eventbus to the correct handler.
   public static <T extends Aggregate> Uni<Void> createChannel(Vertx vertx, Class<T> entityClass, String deploymentID) {
+    registerCodecs(vertx);
+    BinaryCodec.allow(entityClass);
     return invokeConsumer(vertx, entityClass, deploymentID)
       .flatMap(avoid -> broadcastConsumer(vertx, entityClass))
       .flatMap(avoid -> commandBridge(vertx, entityClass)
         .completionHandler()
-      );
+      )
+      .flatMap(avoid -> traceConsumer(vertx, entityClass))
+      .flatMap(avoid -> invalidationConsumer(vertx, entityClass));
+  }
+
+  private static <T extends Aggregate> Uni<Void> invalidationConsumer(Vertx vertx, Class<T> entityClass) {
+    return vertx.eventBus().<JsonObject>consumer(AddressResolver.invalidationChannel(entityClass))
+      .handler(message -> {
+          final var listener = INVALIDATION_LISTENERS.get(entityClass);
+          if (listener != null) {
+            listener.accept(message.body().mapTo(AggregatePlainKey.class));
+          }
+        }
+      )
+      .exceptionHandler(throwable -> handlerThrowable(throwable, entityClass))
+      .completionHandler();
+  }
+
+  /**
+   * Changes the trace sample rate of the aggregate at runtime, messages are published so every node picks it up.
+   * Body is {"sampleRate": 0.01}, 0 turns tracing off.
+   */
+  private static <T extends Aggregate> Uni<Void> traceConsumer(Vertx vertx, Class<T> entityClass) {
+    return vertx.eventBus().<JsonObject>consumer(AddressResolver.traceChannel(entityClass))
+      .handler(message -> {
+          final var tracer = AggregateTracer.of(entityClass).setSampleRate(message.body().getDouble("sampleRate", 0D));
+          LOGGER.info(entityClass.getSimpleName() + " trace sample rate set to " + tracer.sampleRate());
+          message.reply(new JsonObject().put("sampleRate", tracer.sampleRate()));
+        }
+      )
+      .exceptionHandler(throwable -> handlerThrowable(throwable, entityClass))
+      .completionHandler();
   }
 
   private static <T extends Aggregate> MessageConsumer<JsonObject> commandBridge(Vertx vertx, Class<T> entityClass) {
@@ -74,10 +200,10 @@ public class AggregateBus {
 
   private static <T extends Aggregate> Uni<Void> broadcastConsumer(Vertx vertx, Class<T> entityClass) {
     return vertx.eventBus().<String>consumer(AddressResolver.broadcastChannel(entityClass))
-      .handler(objectMessage -> synchronizeChannel(objectMessage, entityClass))
+      .handler(objectMessage -> synchronizeChannel(vertx, objectMessage, entityClass))
       .exceptionHandler(throwable -> handlerThrowable(throwable, entityClass))
       .completionHandler()
-      .flatMap(avoid -> Multi.createBy().repeating().supplier(() -> HASH_RING_MAP.get(entityClass).getNodes().isEmpty())
+      .flatMap(avoid -> Multi.createBy().repeating().supplier(() -> routingTable(entityClass).isEmpty())
         .atMost(10).capDemandsTo(1).paceDemand()
         .using(new FixedDemandPacer(1, Duration.ofMillis(500)))
         .collect().last()
@@ -119,10 +245,12 @@ public class AggregateBus {
         .setLocalOnly(false)
         .setTracingPolicy(TracingPolicy.ALWAYS)
         .addHeader(Actions.ACTION.name(), Actions.ADD.name())
+        .addHeader(CODEC, BinaryCodec.NAME)
     );
   }
 
   public static <T extends Aggregate> void killActor(Vertx vertx, Class<T> entityClass, String deploymentID) {
+    LOCAL_ACTORS.remove(commandConsumer(entityClass, deploymentID));
     vertx.eventBus().publish(
       AddressResolver.broadcastChannel(entityClass),
       commandConsumer(entityClass, deploymentID),
@@ -143,51 +271,257 @@ public class AggregateBus {
     Vertx vertx,
     Class<T> entityClass,
     String deploymentID,
-    Consumer<Message<JsonObject>> consumer
+    Consumer<Message<Object>> consumer
   ) {
-    return vertx.eventBus().<JsonObject>consumer(commandConsumer(entityClass, deploymentID))
+    registerCodecs(vertx);
+    return vertx.eventBus().<Object>consumer(commandConsumer(entityClass, deploymentID))
       .handler(consumer)
       .exceptionHandler(throwable -> dropped(entityClass, throwable))
       .completionHandler()
       .invoke(avoid -> broadcastActorAddress(vertx, entityClass, deploymentID));
   }
 
+  /**
+   * Registers the in-JVM twin of the command consumer, commands reach it as objects through the {@link LocalCodec}
+   * and are handled on the context of the registering verticle.
+   */
+  public static <T extends Aggregate> Uni<Void> registerLocalCommandConsumer(
+    Vertx vertx,
+    Class<T> entityClass,
+    String deploymentID,
+    Consumer<Message<Command>> consumer
+  ) {
+    registerCodecs(vertx);
+    final var address = commandConsumer(entityClass, deploymentID);
+    return vertx.eventBus().<Command>localConsumer(localCommandConsumer(address))
+      .handler(consumer)
+      .exceptionHandler(throwable -> dropped(entityClass, throwable))
+      .completionHandler()
+      .invoke(avoid -> LOCAL_ACTORS.add(address));
+  }
+
+  public static <T extends Aggregate> void replyLocal(Message<Command> message, T aggregateState) {
+    message.reply(aggregateState, new DeliveryOptions().setCodecName(LocalCodec.NAME));
+  }
+
+  /**
+   * Replies with the codec the request came in with, json for peers that did not use the binary codec.
+   */
+  public static void reply(Message<Object> message, Object response) {
+    if (response != null && isBinary(message)) {
+      message.reply(response, new DeliveryOptions().setCodecName(BinaryCodec.NAME));
+    } else {
+      message.reply(response);
+    }
+  }
+
+  public static boolean isBinary(Message<?> message) {
+    return BinaryCodec.NAME.equals(message.headers().get(CODEC));
+  }
+
+  private static void registerCodecs(Vertx vertx) {
+    registerCodec(vertx, new LocalCodec());
+    registerCodec(vertx, new BinaryCodec());
+  }
+
+  private static void registerCodec(Vertx vertx, MessageCodec<?, ?> codec) {
+    try {
+      vertx.eventBus().registerCodec(codec);
+    } catch (IllegalStateException alreadyRegistered) {
+      LOGGER.debug("Codec already registered " + codec.name());
+    }
+  }
+
   private static void dropped(Class<?> entityClass, final Throwable throwable) {
     LOGGER.error("[-- " + entityClass.getSimpleName() + " had to drop the following exception --]", throwable);
   }
 
-  private static void addNode(final String actorAddress, HashRing<SimpleNode> hashRing) {
-    final var simpleNode = SimpleNode.of(actorAddress);
-    if (!hashRing.contains(simpleNode)) {
+  private static boolean addNode(final String actorAddress, Routing routing) {
+    if (routing.members().add(actorAddress)) {
       LOGGER.info("Adding actor to hash-ring [address:" + actorAddress + "]");
-      hashRing.add(simpleNode);
-    } else {
-      LOGGER.info("Actor already in hash-ring [address:" + actorAddress + "]");
+      routing.boundedLoad().addMember(new MemberImpl(actorAddress));
+      return true;
     }
+    LOGGER.info("Actor already in hash-ring [address:" + actorAddress + "]");
+    return false;
   }
 
   public static <T extends Aggregate> Uni<T> request(Vertx vertx, Class<T> entityClass, JsonObject payload, Action action) {
-    final var aggregateKey = new AggregatePlainKey(entityClass.getName(), Objects.requireNonNull(payload.getString("aggregateId")), payload.getJsonObject("headers").getString("tenantId", "default"));
-    final var address = AggregateBus.resolveActor(entityClass, aggregateKey);
+    final var tenantId = payload.containsKey("headers") ? payload.getJsonObject("headers").getString("tenantId", "default") : payload.getString("tenantId", "default");
+    final var aggregateKey = new AggregatePlainKey(entityClass.getName(), Objects.requireNonNull(payload.getString("aggregateId")), tenantId);
+    final var policy = policy(entityClass);
+    final var meters = AggregateMetrics.of(entityClass).command(meterName(payload, action), aggregateKey.tenantId());
+    final var start = AggregateMetrics.start();
+    final Uni<T> primary = withRetries(policy, () -> route(entityClass, aggregateKey, meters.route(), address -> send(vertx, entityClass, policy, aggregateKey, address, payload, action, null)));
+    final Uni<T> response = action == Action.LOAD && policy.hedging() && ROUTING_MODE == RoutingMode.CONSISTENT
+      ? hedged(vertx, entityClass, policy, aggregateKey, payload, primary)
+      : primary;
+    return response
+      .onFailure(AggregateBus::unexpected).transform(Unchecked.function(AggregateBus::transformError))
+      .onTermination().invoke(() -> AggregateMetrics.stop(meters.reply(), start));
+  }
+
+  /**
+   * Json commands are metered under the simple name of their className, loads and catch-ups under their action.
+   */
+  private static String meterName(JsonObject payload, Action action) {
+    final var className = payload.getString(CLASS_NAME);
+    if (action != Action.COMMAND || className == null) {
+      return action.name();
+    }
+    return className.substring(className.lastIndexOf('.') + 1);
+  }
+
+  /**
+   * Sends the command as an object when the owning actor is deployed in this JVM, otherwise falls back to the json payload.
+   */
+  public static <T extends Aggregate> Uni<T> request(Vertx vertx, Class<T> entityClass, Command command) {
+    final var aggregateKey = new AggregatePlainKey(entityClass.getName(), command.aggregateId(), command.headers().tenantId());
+    final var policy = policy(entityClass);
+    final var meters = AggregateMetrics.of(entityClass).command(command.getClass(), aggregateKey.tenantId());
+    final var start = AggregateMetrics.start();
+    return withRetries(policy, () -> route(entityClass, aggregateKey, meters.route(), address -> {
+            if (LOCAL_ACTORS.contains(address)) {
+              return sendLocal(vertx, policy, address, command);
+            }
+            return send(vertx, entityClass, policy, aggregateKey, address, command, Action.COMMAND, command.getClass().getName());
+          }
+        )
+      )
+      .onFailure(AggregateBus::unexpected).transform(Unchecked.function(AggregateBus::transformError))
+      .onTermination().invoke(() -> AggregateMetrics.stop(meters.reply(), start));
+  }
+
+  public static void configure(Class<? extends Aggregate> aggregateClass, AggregateConfiguration configuration) {
+    POLICIES.compute(aggregateClass, (aClass, current) -> current == null ? new RequestPolicy(configuration) : current.reconfigure(configuration));
+    AggregateTracer.of(aggregateClass).setSampleRate(configuration.traceSampleRate());
+  }
+
+  public static RequestPolicy policy(Class<? extends Aggregate> aggregateClass) {
+    return POLICIES.computeIfAbsent(aggregateClass, aClass -> new RequestPolicy(new AggregateConfiguration()));
+  }
+
+  /**
+   * Resolves the actor on subscription, so that every attempt of a retried request reads the current routing
+   * and the bounded load accounts for the actor actually tried.
+   */
+  private static <T extends Aggregate> Uni<T> route(Class<T> entityClass, AggregatePlainKey aggregateKey, Timer routeTimer, Function<String, Uni<T>> sender) {
+    return Uni.createFrom().deferred(() -> {
+        final var start = AggregateMetrics.start();
+        if (ROUTING_MODE == RoutingMode.BOUNDED_LOAD) {
+          final var boundedLoad = routing(entityClass).boundedLoad();
+          final var member = resolveMember(boundedLoad, aggregateKey);
+          AggregateMetrics.stop(routeTimer, start);
+          boundedLoad.incrLoad(member);
+          return sender.apply(member.name())
+            .onTermination().invoke(() -> releaseLoad(boundedLoad, member));
+        }
+        final var address = AggregateBus.resolveActor(entityClass, aggregateKey);
+        AggregateMetrics.stop(routeTimer, start);
+        return sender.apply(address);
+      }
+    );
+  }
+
+  /**
+   * Loads are idempotent, if the owner hasn't answered within the hedge delay the same load is sent to the next node
+   * on the ring and whichever answers first wins. The next node serves the state without caching it.
+   */
+  private static <T extends Aggregate> Uni<T> hedged(Vertx vertx, Class<T> entityClass, RequestPolicy policy, AggregatePlainKey aggregateKey, JsonObject payload, Uni<T> primary) {
+    final var next = routingTable(entityClass).locateNext(aggregateKey.aggregateId());
+    if (next == null) {
+      return primary;
+    }
+    final Uni<T> hedge = Uni.createFrom().voidItem()
+      .onItem().delayIt().by(policy.hedgeDelay())
+      .flatMap(avoid -> {
+          policy.hedged();
+          return send(vertx, entityClass, policy, aggregateKey, next, payload, Action.LOAD, null);
+        }
+      );
+    return Uni.join().first(primary, hedge).withItem()
+      .onFailure(CompositeException.class).transform(throwable -> ((CompositeException) throwable).getCauses().get(0));
+  }
+
+  private static <T extends Aggregate> Uni<T> sendLocal(Vertx vertx, RequestPolicy policy, String address, Command command) {
+    final var options = new DeliveryOptions()
+      .setLocalOnly(true)
+      .setCodecName(LocalCodec.NAME)
+      .addHeader(ACTION, Action.COMMAND.name());
+    final var start = System.nanoTime();
+    return vertx.eventBus().<T>request(localCommandConsumer(address), command, options.setSendTimeout(policy.timeoutInMs()))
+      .invoke(avoid -> policy.record(elapsedInMs(start)))
+      .onFailure(RequestPolicy::timedOut).invoke(policy::recordTimeout)
+      .map(Message::body);
+  }
+
+  private static <T extends Aggregate> Uni<T> send(Vertx vertx, Class<T> entityClass, RequestPolicy policy, AggregatePlainKey aggregateKey, String address, Object payload, Action action, String className) {
+    final var binary = BINARY_ACTORS.contains(address);
+    final var body = binary || payload instanceof JsonObject ? payload : JsonObject.mapFrom(payload);
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("Proxying command -> " + new JsonObject()
         .put("key", aggregateKey)
         .put("address", address)
-        .put("payload", payload)
+        .put("payload", body instanceof JsonObject ? body : JsonObject.mapFrom(body))
         .encodePrettily()
       );
     }
-    return vertx.eventBus().<JsonObject>request(
-        address,
-        payload,
-        new DeliveryOptions()
-          .setLocalOnly(false)
-          .setSendTimeout(250)
-          .addHeader(ACTION, action.name())
-      )
-      .onFailure(ReplyException.class).retry().atMost(3)
-      .map(response -> response.body().mapTo(entityClass))
-      .onFailure().transform(Unchecked.function(AggregateBus::transformError));
+    final var options = new DeliveryOptions()
+      .setLocalOnly(false)
+      .addHeader(ACTION, action.name());
+    if (className != null) {
+      options.addHeader(CLASS_NAME, className);
+    }
+    if (binary) {
+      options.setCodecName(BinaryCodec.NAME).addHeader(CODEC, BinaryCodec.NAME);
+    }
+    final var start = System.nanoTime();
+    return vertx.eventBus().<Object>request(address, body, options.setSendTimeout(policy.timeoutInMs()))
+      .invoke(avoid -> policy.record(elapsedInMs(start)))
+      .onFailure(RequestPolicy::timedOut).invoke(policy::recordTimeout)
+      .map(response -> response.body() instanceof JsonObject json ? json.mapTo(entityClass) : entityClass.cast(response.body()));
+  }
+
+  private static <M> Uni<M> withRetries(RequestPolicy policy, Supplier<Uni<M>> request) {
+    final var attempts = new AtomicInteger(0);
+    final var uni = Uni.createFrom().deferred(() -> {
+        if (attempts.getAndIncrement() > 0) {
+          policy.retried();
+        }
+        return request.get();
+      }
+    );
+    if (policy.maxRetries() <= 0) {
+      return uni;
+    }
+    return uni.onFailure(policy::retryable).retry()
+      .withBackOff(policy.retryBackoff(), policy.retryBackoff().multipliedBy(10))
+      .withJitter(0.5)
+      .atMost(policy.maxRetries());
+  }
+
+  private static long elapsedInMs(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private static Member resolveMember(Consistent boundedLoad, AggregatePlainKey key) {
+    try {
+      return boundedLoad.locate(key.aggregateId());
+    } catch (EmptyHashRingException emptyHashRing) {
+      throw new NodeUnavailable(key.aggregateId());
+    }
+  }
+
+  private static void releaseLoad(Consistent boundedLoad, Member member) {
+    try {
+      boundedLoad.decrLoad(member);
+    } catch (MemberNotFoundException memberNotFound) {
+      LOGGER.debug("Actor left the hash-ring before its load was released [address: " + member.name() + "]");
+    }
+  }
+
+  private static boolean unexpected(Throwable throwable) {
+    return !(throwable instanceof EventxException);
   }
 
   private static Throwable transformError(final Throwable throwable) {
@@ -224,38 +558,82 @@ public class AggregateBus {
   }
 
   public static <T extends Aggregate> String resolveActor(Class<T> entityClass, AggregatePlainKey key) {
-    final var node = HASH_RING_MAP.get(entityClass).locate(entityClass.getSimpleName() + key.aggregateId());
-    return node.orElse(HASH_RING_MAP.get(entityClass).getNodes().stream().findFirst()
-        .orElseThrow(() -> new NodeUnavailable(key.aggregateId()))
-      )
-      .getKey();
+    final var address = routingTable(entityClass).locate(key.aggregateId());
+    if (address == null) {
+      throw new NodeUnavailable(key.aggregateId());
+    }
+    return address;
   }
 
   private static void handlerThrowable(final Throwable throwable, Class<?> entityClass) {
     LOGGER.error("[-- Channel for entity " + entityClass.getSimpleName() + " had to drop the following exception --]", throwable);
   }
 
-  private static void removeActor(final String handler, HashRing<SimpleNode> hashRing) {
-    final var simpleNode = SimpleNode.of(handler);
-    if (hashRing.contains(simpleNode)) {
+  private static boolean removeActor(final String handler, Routing routing) {
+    if (routing.members().remove(handler)) {
       LOGGER.info("Removing actor form hash-ring [address: " + handler + "]");
-      hashRing.remove(simpleNode);
-    } else {
-      LOGGER.info("Actor not present in hash-ring [address: " + handler + "]");
+      routing.boundedLoad().removeMember(new MemberImpl(handler));
+      return true;
     }
+    LOGGER.info("Actor not present in hash-ring [address: " + handler + "]");
+    return false;
   }
 
-  private static void synchronizeChannel(Message<String> objectMessage, Class<? extends Aggregate> entityClass) {
+  private static void synchronizeChannel(Vertx vertx, Message<String> objectMessage, Class<? extends Aggregate> entityClass) {
     LOGGER.debug("Synchronizing " + entityClass.getSimpleName() + " Channel " + new JsonObject()
       .put("action", objectMessage.headers().get(Actions.ACTION.name()))
       .put("body", objectMessage.body()).encodePrettily());
-    HASH_RING_MAP.computeIfAbsent(entityClass, (aClass) -> HASH_RING_MAP.put(aClass, startHashRing(aClass)));
-    switch (Actions.valueOf(objectMessage.headers().get(Actions.ACTION.name()))) {
-      case ADD -> addNode(objectMessage.body(), HASH_RING_MAP.get(entityClass));
-      case REMOVE -> removeActor(objectMessage.body(), HASH_RING_MAP.get(entityClass));
+    final var routing = routing(entityClass);
+    final var changed = switch (Actions.valueOf(objectMessage.headers().get(Actions.ACTION.name()))) {
+      case ADD -> {
+        if (isBinary(objectMessage)) {
+          BINARY_ACTORS.add(objectMessage.body());
+        } else {
+          BINARY_ACTORS.remove(objectMessage.body());
+        }
+        yield addNode(objectMessage.body(), routing);
+      }
+      case REMOVE -> {
+        BINARY_ACTORS.remove(objectMessage.body());
+        yield removeActor(objectMessage.body(), routing);
+      }
       default -> throw UnknownCommand.unknown(objectMessage.body().getClass());
+    };
+    if (changed) {
+      rebuildRoutingTable(vertx, entityClass, routing);
     }
   }
 
+  /**
+   * Builds the table on a worker and publishes it only if no newer membership snapshot got there first,
+   * readers always see a complete table.
+   */
+  private static void rebuildRoutingTable(Vertx vertx, Class<? extends Aggregate> entityClass, Routing routing) {
+    final var version = routing.version().incrementAndGet();
+    final var members = List.copyOf(routing.members());
+    vertx.executeBlocking(Uni.createFrom().item(() -> {
+            final var table = RoutingTable.build(entityClass, version, members, RoutingTable.VIRTUAL_NODES);
+            final var published = routing.table().accumulateAndGet(table, (current, next) -> next.version() > current.version() ? next : current);
+            final var listener = ROUTING_LISTENERS.get(entityClass);
+            if (published == table && listener != null) {
+              listener.accept(table);
+            }
+            return table;
+          }
+        ), false)
+      .subscribe().with(
+        table -> LOGGER.debug(entityClass.getSimpleName() + " routing table version " + table.version() + " built"),
+        throwable -> handlerThrowable(throwable, entityClass)
+      );
+  }
+
+  private record Routing(
+    Set<String> members,
+    AtomicLong version,
+    AtomicReference<RoutingTable> table,
+    Consistent boundedLoad
+  ) {
+  }
+
 
 }
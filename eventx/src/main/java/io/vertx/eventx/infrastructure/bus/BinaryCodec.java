@@ -0,0 +1,104 @@
+package io.vertx.eventx.infrastructure.bus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
+import io.vertx.eventx.infrastructure.misc.TypeRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Smile encoded messages between nodes, used for commands, aggregate states and json payloads.
+ * <p>
+ * Wire format is [class name length][class name][payload length][smile payload], the receiver resolves the class
+ * through the {@link TypeRegistry} so both ends need the type on their classpath.
+ * Only types allowed by the node are resolved, the commands of the behaviours it deploys and the aggregates it talks to,
+ * anything else coming from a peer is refused before its class is looked up.
+ * Only sent to peers that advertised the codec when joining the hash ring, the others still get json.
+ */
+public class BinaryCodec implements MessageCodec<Object, Object> {
+  public static final String NAME = "eventx-smile";
+  public static final ObjectMapper SMILE_MAPPER = DatabindCodec.mapper().copyWith(new SmileFactory());
+  private static final Set<String> ALLOWED_TYPES = ConcurrentHashMap.newKeySet();
+
+  static {
+    ALLOWED_TYPES.add(JsonObject.class.getName());
+  }
+
+  private static final ClassValue<ObjectWriter> WRITERS = new ClassValue<>() {
+    @Override
+    protected ObjectWriter computeValue(Class<?> type) {
+      return SMILE_MAPPER.writerFor(type == JsonObject.class ? Map.class : type);
+    }
+  };
+  private static final ClassValue<ObjectReader> READERS = new ClassValue<>() {
+    @Override
+    protected ObjectReader computeValue(Class<?> type) {
+      return SMILE_MAPPER.readerFor(type == JsonObject.class ? Map.class : type);
+    }
+  };
+
+  public static void allow(Class<?> type) {
+    ALLOWED_TYPES.add(type.getName());
+  }
+
+  @Override
+  public void encodeToWire(Buffer buffer, Object object) {
+    final var className = object.getClass().getName().getBytes(StandardCharsets.UTF_8);
+    try {
+      final var payload = WRITERS.get(object.getClass()).writeValueAsBytes(object instanceof JsonObject json ? json.getMap() : object);
+      buffer.appendInt(className.length)
+        .appendBytes(className)
+        .appendInt(payload.length)
+        .appendBytes(payload);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public Object decodeFromWire(int pos, Buffer buffer) {
+    final var classNameLength = buffer.getInt(pos);
+    pos += 4;
+    final var className = buffer.getString(pos, pos + classNameLength, StandardCharsets.UTF_8.name());
+    pos += classNameLength;
+    final var payloadLength = buffer.getInt(pos);
+    pos += 4;
+    if (!ALLOWED_TYPES.contains(className)) {
+      throw new IllegalArgumentException("Type not allowed on the bus " + className);
+    }
+    final Class<?> type = TypeRegistry.resolve(className).type();
+    try {
+      final var object = READERS.get(type).readValue(buffer.getBytes(pos, pos + payloadLength));
+      return type == JsonObject.class ? new JsonObject((Map<String, Object>) object) : object;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public Object transform(Object object) {
+    return object;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+
+}
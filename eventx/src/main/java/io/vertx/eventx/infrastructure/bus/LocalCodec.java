@@ -0,0 +1,38 @@
+package io.vertx.eventx.infrastructure.bus;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+
+/**
+ * Pass-through codec for messages that never leave the JVM, the receiver gets the same instance the sender used.
+ * Only safe for immutable payloads or payloads the sender hands over and no longer touches.
+ */
+public class LocalCodec implements MessageCodec<Object, Object> {
+  public static final String NAME = "eventx-local";
+
+  @Override
+  public void encodeToWire(Buffer buffer, Object object) {
+    throw new UnsupportedOperationException("LocalCodec can only be used with local delivery");
+  }
+
+  @Override
+  public Object decodeFromWire(int pos, Buffer buffer) {
+    throw new UnsupportedOperationException("LocalCodec can only be used with local delivery");
+  }
+
+  @Override
+  public Object transform(Object object) {
+    return object;
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public byte systemCodecID() {
+    return -1;
+  }
+
+}
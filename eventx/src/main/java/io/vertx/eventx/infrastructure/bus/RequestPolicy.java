@@ -0,0 +1,142 @@
+package io.vertx.eventx.infrastructure.bus;
+
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.eventx.objects.AggregateConfiguration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.vertx.core.eventbus.ReplyFailure.NO_HANDLERS;
+import static io.vertx.core.eventbus.ReplyFailure.TIMEOUT;
+
+/**
+ * Send policy of an aggregate's bus requests.
+ * <p>
+ * Keeps a rolling window of reply latencies, the send timeout is a percentile of that window times a multiplier,
+ * bounded by the configured min/max. Until the window has enough samples the max timeout is used so cold replays
+ * aren't cut short. A timeout doubles the send timeout right away and goes in the window as a sample of that size,
+ * so the timeout grows back as soon as replies get slower than it.
+ * Policies outlive configuration reloads, only the bounds change.
+ */
+public final class RequestPolicy {
+  private static final int WINDOW = 1024;
+  private static final int RECOMPUTE_EVERY = 128;
+
+  private volatile AggregateConfiguration configuration;
+  private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+  private final AtomicLong recorded = new AtomicLong();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private volatile long timeoutInMs;
+  private volatile long hedgeDelayInMs;
+
+  public RequestPolicy(AggregateConfiguration configuration) {
+    this.configuration = configuration;
+    this.timeoutInMs = configuration.busMaxTimeoutInMs();
+    this.hedgeDelayInMs = configuration.busMaxTimeoutInMs();
+  }
+
+  /**
+   * Swaps the configuration keeping the collected latencies, the current timeout is brought within the new bounds.
+   */
+  public RequestPolicy reconfigure(AggregateConfiguration configuration) {
+    this.configuration = configuration;
+    this.timeoutInMs = bounded(timeoutInMs);
+    this.hedgeDelayInMs = Math.min(hedgeDelayInMs, timeoutInMs);
+    return this;
+  }
+
+  public void recordTimeout() {
+    timeouts.increment();
+    final var doubled = bounded(timeoutInMs * 2);
+    this.timeoutInMs = doubled;
+    record(doubled);
+  }
+
+  public static boolean timedOut(Throwable throwable) {
+    return throwable instanceof ReplyException reply && reply.failureType() == TIMEOUT;
+  }
+
+  public void record(long latencyInMs) {
+    final var count = recorded.getAndIncrement();
+    samples.set((int) (count % WINDOW), latencyInMs);
+    if ((count + 1) % RECOMPUTE_EVERY == 0) {
+      recompute((int) Math.min(count + 1, WINDOW));
+    }
+  }
+
+  private void recompute(int size) {
+    final var sorted = new long[size];
+    for (int i = 0; i < size; i++) {
+      sorted[i] = samples.get(i);
+    }
+    Arrays.sort(sorted);
+    final var timeout = (long) (percentile(sorted, configuration.busTimeoutPercentile()) * configuration.busTimeoutMultiplier());
+    this.timeoutInMs = bounded(timeout);
+    this.hedgeDelayInMs = Math.max(1L, Math.min(timeoutInMs, percentile(sorted, configuration.busHedgePercentile())));
+  }
+
+  private long bounded(long timeout) {
+    return Math.max(configuration.busMinTimeoutInMs(), Math.min(configuration.busMaxTimeoutInMs(), timeout));
+  }
+
+  private static long percentile(long[] sorted, double percentile) {
+    return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+  }
+
+  /**
+   * Only failures where the request never reached a handler, or the handler didn't answer in time, are retried.
+   * A recipient failure means the command was processed and rejected.
+   */
+  public boolean retryable(Throwable throwable) {
+    if (throwable instanceof ReplyException reply) {
+      return reply.failureType() == TIMEOUT || reply.failureType() == NO_HANDLERS;
+    }
+    return false;
+  }
+
+  public long timeoutInMs() {
+    return timeoutInMs;
+  }
+
+  public Duration hedgeDelay() {
+    return Duration.ofMillis(hedgeDelayInMs);
+  }
+
+  public Duration retryBackoff() {
+    return Duration.ofMillis(configuration.busRetryBackoffInMs());
+  }
+
+  public int maxRetries() {
+    return configuration.busRetries();
+  }
+
+  public boolean hedging() {
+    return Boolean.TRUE.equals(configuration.busHedging());
+  }
+
+  public void retried() {
+    retries.increment();
+  }
+
+  public void hedged() {
+    hedges.increment();
+  }
+
+  public long retries() {
+    return retries.sum();
+  }
+
+  public long hedges() {
+    return hedges.sum();
+  }
+
+  public long timeouts() {
+    return timeouts.sum();
+  }
+
+}
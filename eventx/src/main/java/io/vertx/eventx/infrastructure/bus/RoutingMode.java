@@ -0,0 +1,8 @@
+package io.vertx.eventx.infrastructure.bus;
+
+public enum RoutingMode {
+  // plain consistent hashing, an aggregate always lands on the node owning its token
+  CONSISTENT,
+  // consistent hashing with bounded loads, an aggregate moves to the next node on the ring while its owner is over the bound
+  BOUNDED_LOAD
+}
@@ -0,0 +1,136 @@
+package io.vertx.eventx.infrastructure.bus;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable snapshot of the hash ring of an aggregate, tokens are kept sorted in a primitive array
+ * with the owning address at the same index.
+ * <p>
+ * Tables are built off the event-loop whenever membership changes and published as a whole,
+ * lookups are a binary search without locking or allocation.
+ */
+public final class RoutingTable {
+  public static final int VIRTUAL_NODES = Integer.parseInt(System.getenv().getOrDefault("AGGREGATE_BUS_VIRTUAL_NODES", "256"));
+
+  private final long version;
+  private final long seed;
+  private final List<String> members;
+  private final long[] tokens;
+  private final String[] addresses;
+
+  private RoutingTable(long version, long seed, List<String> members, long[] tokens, String[] addresses) {
+    this.version = version;
+    this.seed = seed;
+    this.members = members;
+    this.tokens = tokens;
+    this.addresses = addresses;
+  }
+
+  public static RoutingTable empty(Class<?> aggregateClass) {
+    return new RoutingTable(0L, hash(0L, aggregateClass.getName()), List.of(), new long[0], new String[0]);
+  }
+
+  public static RoutingTable build(Class<?> aggregateClass, long version, Collection<String> members, int virtualNodes) {
+    final var seed = hash(0L, aggregateClass.getName());
+    final var sortedMembers = members.stream().sorted().toList();
+    final var size = sortedMembers.size() * virtualNodes;
+    final var unsortedTokens = new long[size];
+    final var unsortedAddresses = new String[size];
+    for (int m = 0; m < sortedMembers.size(); m++) {
+      final var member = sortedMembers.get(m);
+      final var memberSeed = hash(seed, member);
+      for (int v = 0; v < virtualNodes; v++) {
+        unsortedTokens[m * virtualNodes + v] = mix(memberSeed + v * 0x9E3779B97F4A7C15L);
+        unsortedAddresses[m * virtualNodes + v] = member;
+      }
+    }
+    final var order = IntStream.range(0, size)
+      .boxed()
+      .sorted(Comparator.<Integer>comparingLong(i -> unsortedTokens[i]).thenComparing(i -> unsortedAddresses[i]))
+      .mapToInt(Integer::intValue)
+      .toArray();
+    final var tokens = new long[size];
+    final var addresses = new String[size];
+    for (int i = 0; i < size; i++) {
+      tokens[i] = unsortedTokens[order[i]];
+      addresses[i] = unsortedAddresses[order[i]];
+    }
+    return new RoutingTable(version, seed, sortedMembers, tokens, addresses);
+  }
+
+  /**
+   * @return the address owning the aggregate, or null if the table is empty.
+   */
+  public String locate(String aggregateId) {
+    if (tokens.length == 0) {
+      return null;
+    }
+    int index = Arrays.binarySearch(tokens, hash(seed, aggregateId));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return addresses[index == tokens.length ? 0 : index];
+  }
+
+  /**
+   * @return the first address after the owner of the aggregate on the ring, or null if there's no other member.
+   */
+  public String locateNext(String aggregateId) {
+    if (members.size() < 2) {
+      return null;
+    }
+    int index = Arrays.binarySearch(tokens, hash(seed, aggregateId));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    final var owner = addresses[index == tokens.length ? 0 : index];
+    for (int i = 1; i < tokens.length; i++) {
+      final var candidate = addresses[(index + i) % tokens.length];
+      if (!candidate.equals(owner)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  public List<String> members() {
+    return members;
+  }
+
+  public boolean isEmpty() {
+    return tokens.length == 0;
+  }
+
+  public boolean contains(String address) {
+    return members.contains(address);
+  }
+
+  // murmur3 style hash over the utf-16 code units, avoids encoding the key into a byte[]
+  static long hash(long seed, CharSequence value) {
+    long h = seed ^ (value.length() * 0xC6A4A7935BD1E995L);
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x87C37B91114253D5L;
+      h = Long.rotateLeft(h, 31);
+    }
+    return mix(h);
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+}
@@ -0,0 +1,108 @@
+package io.vertx.eventx.infrastructure.misc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.micrometer.backends.BackendRegistries;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command pipeline meters of an aggregate.
+ * <p>
+ * Meters are built once per (tenant) and (command, tenant) and cached, so recording on the hot path
+ * is a couple of map lookups and an increment. Falls back to the micrometer global registry when vert.x metrics
+ * are disabled, which is a no-op unless something registered a backend on it.
+ */
+public final class AggregateMetrics {
+  private static final Map<Class<?>, AggregateMetrics> METRICS = new ConcurrentHashMap<>();
+
+  private final MeterRegistry registry;
+  private final String aggregate;
+  private final Map<String, TenantMeters> tenants = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, CommandMeters>> commands = new ConcurrentHashMap<>();
+
+  private AggregateMetrics(MeterRegistry registry, Class<?> aggregateClass) {
+    this.registry = registry;
+    this.aggregate = aggregateClass.getSimpleName();
+  }
+
+  public static AggregateMetrics of(Class<?> aggregateClass) {
+    return METRICS.computeIfAbsent(aggregateClass, aClass -> new AggregateMetrics(registry(), aClass));
+  }
+
+  public static MeterRegistry registry() {
+    return Objects.requireNonNullElse(BackendRegistries.getDefaultNow(), Metrics.globalRegistry);
+  }
+
+  public TenantMeters tenant(String tenant) {
+    return tenants.computeIfAbsent(Objects.requireNonNullElse(tenant, "default"), this::tenantMeters);
+  }
+
+  public CommandMeters command(Class<?> commandClass, String tenant) {
+    return command(commandClass.getSimpleName(), tenant);
+  }
+
+  /**
+   * Meters of a command known only by name, a json command's class name or the action of a load.
+   */
+  public CommandMeters command(String command, String tenant) {
+    return commands.computeIfAbsent(command, k -> new ConcurrentHashMap<>())
+      .computeIfAbsent(Objects.requireNonNullElse(tenant, "default"), t -> commandMeters(command, t));
+  }
+
+  private TenantMeters tenantMeters(String tenant) {
+    final var tags = Tags.of("aggregate", aggregate, "tenant", tenant);
+    return new TenantMeters(
+      Counter.builder("eventx.aggregate.load").tags(tags).tag("cache", "hit").register(registry),
+      Counter.builder("eventx.aggregate.load").tags(tags).tag("cache", "miss").register(registry),
+      Timer.builder("eventx.aggregate.replay").description("Time to rebuild an aggregate missing from the cache").tags(tags).register(registry),
+      DistributionSummary.builder("eventx.aggregate.replay.events").description("Journal events applied per replay").tags(tags).register(registry),
+      Timer.builder("eventx.aggregate.append").tags(tags).register(registry),
+      Counter.builder("eventx.aggregate.conflict.retries").tags(tags).register(registry)
+    );
+  }
+
+  private CommandMeters commandMeters(String command, String tenant) {
+    final var tags = Tags.of("aggregate", aggregate, "command", command, "tenant", tenant);
+    return new CommandMeters(
+      Timer.builder("eventx.command.route").description("Time to resolve the actor owning the aggregate").tags(tags).register(registry),
+      Timer.builder("eventx.command.behaviour").tags(tags).register(registry),
+      Timer.builder("eventx.command.reply").description("Round trip from the bus request to the reply").tags(tags).register(registry),
+      Counter.builder("eventx.command.rejected").tags(tags).register(registry)
+    );
+  }
+
+  public static long start() {
+    return System.nanoTime();
+  }
+
+  public static void stop(Timer timer, long start) {
+    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  public record TenantMeters(
+    Counter cacheHit,
+    Counter cacheMiss,
+    Timer replay,
+    DistributionSummary replayEvents,
+    Timer append,
+    Counter conflictRetries
+  ) {
+  }
+
+  public record CommandMeters(
+    Timer route,
+    Timer behaviour,
+    Timer reply,
+    Counter rejected
+  ) {
+  }
+
+}
@@ -0,0 +1,99 @@
+package io.vertx.eventx.infrastructure.misc;
+
+import io.vertx.core.impl.logging.Logger;
+import io.vertx.core.impl.logging.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampled debug tracing of an aggregate's command and replay pipeline.
+ * <p>
+ * Call sites guard their messages with {@link #sampled()}, so nothing is built unless the aggregate is being traced
+ * and debug is enabled. The sample rate can be changed at runtime, 0 turns tracing off.
+ * Per item activity is only counted, a summary is logged at most once per interval.
+ */
+public final class AggregateTracer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AggregateTracer.class);
+  private static final Map<Class<?>, AggregateTracer> TRACERS = new ConcurrentHashMap<>();
+  public static final long SUMMARY_INTERVAL_IN_MS = Long.parseLong(System.getenv().getOrDefault("AGGREGATE_TRACE_SUMMARY_INTERVAL_IN_MS", "30000"));
+  private static final long SUMMARY_INTERVAL_IN_NANOS = TimeUnit.MILLISECONDS.toNanos(SUMMARY_INTERVAL_IN_MS);
+
+  private final String aggregate;
+  private final LongAdder eventsApplied = new LongAdder();
+  private final LongAdder replays = new LongAdder();
+  private final LongAdder commandsProcessed = new LongAdder();
+  private final LongAdder commandsRejected = new LongAdder();
+  private final AtomicLong lastSummary = new AtomicLong(System.nanoTime());
+  private volatile double sampleRate = 0;
+
+  private AggregateTracer(Class<?> aggregateClass) {
+    this.aggregate = aggregateClass.getSimpleName();
+  }
+
+  public static AggregateTracer of(Class<?> aggregateClass) {
+    return TRACERS.computeIfAbsent(aggregateClass, AggregateTracer::new);
+  }
+
+  public AggregateTracer setSampleRate(double sampleRate) {
+    this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+    return this;
+  }
+
+  public double sampleRate() {
+    return sampleRate;
+  }
+
+  public boolean sampled() {
+    final var rate = sampleRate;
+    return rate > 0 && LOGGER.isDebugEnabled() && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+  }
+
+  public void trace(String message) {
+    LOGGER.debug("[" + aggregate + "] " + message);
+  }
+
+  public void trace(String message, Throwable throwable) {
+    LOGGER.debug("[" + aggregate + "] " + message, throwable);
+  }
+
+  public void eventApplied() {
+    eventsApplied.increment();
+  }
+
+  public void replayed() {
+    replays.increment();
+  }
+
+  public void commandsProcessed(int count) {
+    commandsProcessed.add(count);
+  }
+
+  public void commandRejected() {
+    commandsRejected.increment();
+  }
+
+  /**
+   * Logs the counters accumulated since the previous summary, if the interval has elapsed.
+   */
+  public void summarize() {
+    final var now = System.nanoTime();
+    final var last = lastSummary.get();
+    if (now - last < SUMMARY_INTERVAL_IN_NANOS || !lastSummary.compareAndSet(last, now)) {
+      return;
+    }
+    final var commands = commandsProcessed.sumThenReset();
+    final var rejected = commandsRejected.sumThenReset();
+    final var events = eventsApplied.sumThenReset();
+    final var replayCount = replays.sumThenReset();
+    if ((commands | rejected | events | replayCount) != 0 && LOGGER.isInfoEnabled()) {
+      LOGGER.info("[" + aggregate + "] last " + TimeUnit.NANOSECONDS.toSeconds(now - last) + "s: "
+        + commands + " commands, " + rejected + " rejected, " + replayCount + " replays, " + events + " events applied");
+    }
+  }
+
+}
@@ -8,10 +8,9 @@ public class EventParser {
 
   public static <T extends io.vertx.eventx.Event> T getEvent(final String eventClazz, JsonObject event) {
     try {
-      final var eventClass = Class.forName(eventClazz);
-      return (T) event.mapTo(eventClass);
+      return (T) TypeRegistry.resolve(eventClazz).read(event);
     } catch (Exception e) {
-      throw new IllegalArgumentException("Unable to cast event");
+      throw new IllegalArgumentException("Unable to cast event", e);
     }
   }
 
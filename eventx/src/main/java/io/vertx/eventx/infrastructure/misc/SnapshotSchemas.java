@@ -0,0 +1,48 @@
+package io.vertx.eventx.infrastructure.misc;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.eventx.Aggregate;
+import io.vertx.eventx.SnapshotTransformer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-wide registry of the snapshot transformers, used by every reader of stored aggregate states.
+ */
+public final class SnapshotSchemas {
+
+  private SnapshotSchemas() {
+  }
+
+  private static final Map<Class<?>, SnapshotTransformer<?>> TRANSFORMERS = new ConcurrentHashMap<>();
+
+  public static <T extends Aggregate> void register(Class<T> aggregateClass, SnapshotTransformer<T> transformer) {
+    TRANSFORMERS.put(aggregateClass, transformer);
+  }
+
+  /**
+   * Reads a snapshot written with the given schema version, a null version means it was written with the current one.
+   * Aggregates without a transformer only know their version once bound, those fall back to {@link Aggregate#transformSnapshot}.
+   */
+  public static <T extends Aggregate> T read(Class<T> aggregateClass, Integer schemaVersion, JsonObject snapshot) {
+    final var transformer = (SnapshotTransformer<T>) TRANSFORMERS.get(aggregateClass);
+    if (transformer != null) {
+      if (schemaVersion != null && schemaVersion != transformer.currentSchemaVersion()) {
+        return transformer.transformFrom(schemaVersion, snapshot);
+      }
+      return TypeRegistry.resolve(aggregateClass).read(snapshot);
+    }
+    final var state = TypeRegistry.resolve(aggregateClass).read(snapshot);
+    if (schemaVersion != null && state.schemaVersion() != schemaVersion) {
+      return aggregateClass.cast(state.transformSnapshot(schemaVersion, snapshot));
+    }
+    return state;
+  }
+
+  public static <T extends Aggregate> int currentSchemaVersion(T state) {
+    final var transformer = TRANSFORMERS.get(state.getClass());
+    return transformer != null ? transformer.currentSchemaVersion() : state.schemaVersion();
+  }
+
+}
@@ -0,0 +1,91 @@
+package io.vertx.eventx.infrastructure.misc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Shared, bounded registry of resolved event and command types.
+ * Keeps the Class and the pre-built jackson reader/writer so hot paths avoid reflective lookups.
+ */
+public final class TypeRegistry {
+
+  private TypeRegistry() {
+  }
+
+  public static final int TYPE_REGISTRY_MAX_SIZE = Integer.parseInt(System.getenv().getOrDefault("TYPE_REGISTRY_MAX_SIZE", "10000"));
+  private static final ObjectMapper MAPPER = DatabindCodec.mapper();
+  private static final ObjectReader MAP_READER = MAPPER.readerFor(Map.class);
+  private static final Cache<String, Binding<?>> BINDINGS = Caffeine.newBuilder()
+    .maximumSize(TYPE_REGISTRY_MAX_SIZE)
+    .recordStats()
+    .build();
+
+  public static <T> Binding<T> resolve(final String className) {
+    return (Binding<T>) BINDINGS.get(className, TypeRegistry::load);
+  }
+
+  public static <T> Binding<T> resolve(final Class<T> type) {
+    return (Binding<T>) BINDINGS.get(type.getName(), name -> bind(type));
+  }
+
+  public static long hits() {
+    return BINDINGS.stats().hitCount();
+  }
+
+  public static long misses() {
+    return BINDINGS.stats().missCount();
+  }
+
+  public static long size() {
+    return BINDINGS.estimatedSize();
+  }
+
+  private static Binding<?> load(final String className) {
+    try {
+      return bind(Class.forName(className));
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException("Unknown class " + className, e);
+    }
+  }
+
+  private static <T> Binding<T> bind(final Class<T> type) {
+    return new Binding<>(type, MAPPER.readerFor(type), MAPPER.writerFor(type));
+  }
+
+  public record Binding<T>(
+    Class<T> type,
+    ObjectReader reader,
+    ObjectWriter writer
+  ) {
+
+    public T read(final JsonObject json) {
+      try (final var buffer = new TokenBuffer(MAPPER, false)) {
+        MAPPER.writeValue(buffer, json.getMap());
+        return reader.readValue(buffer.asParser());
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Unable to read " + type.getName(), e);
+      }
+    }
+
+    public JsonObject write(final Object value) {
+      try (final var buffer = new TokenBuffer(MAPPER, false)) {
+        writer.writeValue(buffer, value);
+        return new JsonObject((Map<String, Object>) MAP_READER.readValue(buffer.asParser()));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+  }
+
+}
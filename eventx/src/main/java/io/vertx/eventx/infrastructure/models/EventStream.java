@@ -13,6 +13,21 @@ public record EventStream(
   String tenantId,
 
   Long offset,
-  Integer batchSize
+  Integer batchSize,
+  Integer partition,
+  Integer partitions
 ) {
+
+  public EventStream(
+    List<Class<? extends Aggregate>> aggregates,
+    List<Class<? extends Event>> events,
+    List<String> aggregateIds,
+    List<String> tags,
+    String tenantId,
+    Long offset,
+    Integer batchSize
+  ) {
+    this(aggregates, events, aggregateIds, tags, tenantId, offset, batchSize, null, null);
+  }
+
 }
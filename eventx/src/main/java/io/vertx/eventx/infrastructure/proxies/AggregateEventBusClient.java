@@ -6,6 +6,7 @@ import io.vertx.eventx.Aggregate;
 import io.vertx.core.impl.logging.Logger;
 import io.vertx.core.impl.logging.LoggerFactory;
 import io.vertx.core.json.JsonObject;
+import io.vertx.eventx.infrastructure.bus.BinaryCodec;
 import io.vertx.eventx.infrastructure.models.AggregatePlainKey;
 import io.vertx.eventx.objects.Action;
 import io.vertx.mutiny.core.Vertx;
@@ -24,6 +25,7 @@ public class AggregateEventBusClient<T extends Aggregate> {
   ) {
     this.vertx = vertx;
     this.aggregateClass = entityClass;
+    BinaryCodec.allow(entityClass);
   }
 
   public Uni<T> wakeUp(AggregatePlainKey key) {
@@ -35,13 +37,24 @@ public class AggregateEventBusClient<T extends Aggregate> {
     );
   }
 
+  /**
+   * Asks the owner to project the aggregate up to the journal offset, the owner answers from its cache when it already did.
+   */
+  public Uni<Void> catchUp(AggregatePlainKey key, long journalOffset) {
+    return request(
+      vertx,
+      aggregateClass,
+      JsonObject.mapFrom(key).put("journalOffset", journalOffset),
+      Action.CATCH_UP
+    )
+      .replaceWithVoid();
+  }
 
   public Uni<T> command(Command command) {
     return request(
       vertx,
       aggregateClass,
-      JsonObject.mapFrom(command),
-      Action.COMMAND
+      command
     );
   }
 
@@ -23,7 +23,11 @@ import io.vertx.eventx.core.AggregateHeartbeat;
 import io.vertx.eventx.core.AggregateVerticle;
 import io.vertx.eventx.core.StateProjectionPoller;
 import io.vertx.eventx.infrastructure.*;
+import io.vertx.eventx.infrastructure.bus.AggregateBus;
+import io.vertx.eventx.infrastructure.models.AggregateKey;
+import io.vertx.eventx.infrastructure.bus.RoutingTable;
 import io.vertx.eventx.infrastructure.proxies.AggregateEventBusClient;
+import io.vertx.eventx.objects.AggregateConfiguration;
 import io.vertx.eventx.objects.StateProjectionWrapper;
 import io.vertx.eventx.task.TimerTaskDeployer;
 import io.vertx.mutiny.config.ConfigRetriever;
@@ -82,6 +86,7 @@ public class AggregateResources<T extends Aggregate> {
           .invoke(timerTaskDeployer::deploy)
           .call(injector -> {
               final Supplier<Verticle> supplier = () -> new AggregateVerticle<>(aggregateClass, ModuleBuilder.create().install(localModules));
+              AggregateBus.configure(aggregateClass, newConfiguration.getJsonObject(aggregateClass.getSimpleName(), new JsonObject()).mapTo(AggregateConfiguration.class));
               return createChannel(vertx, aggregateClass, deploymentID)
                 .flatMap(avoid -> vertx.deployVerticle(supplier, new DeploymentOptions()
                       .setConfig(newConfiguration)
@@ -113,9 +118,25 @@ public class AggregateResources<T extends Aggregate> {
       injector.getInstance(SnapshotStore.class),
       injector.getInstance(OffsetStore.class)
     );
+    AggregateBus.onRoutingChange(aggregateClass, this::evictForeignAggregates);
+    if (infrastructure.cache() != null) {
+      AggregateBus.onInvalidation(aggregateClass, key -> infrastructure.cache().invalidate(new AggregateKey<>(aggregateClass, key.aggregateId(), key.tenantId())));
+    }
     return infrastructure.start().replaceWith(injector);
   }
 
+  /**
+   * Lets go of the cached aggregates that moved to another node, so a later move back doesn't serve a stale state.
+   * With bounded load routing only the home of an aggregate on the ring caches it, the sweep drops the ones whose home moved.
+   */
+  private void evictForeignAggregates(RoutingTable table) {
+    if (table.isEmpty() || infrastructure.cache() == null) {
+      return;
+    }
+    infrastructure.cache().invalidateIf(aggregateClass, key -> !AggregateBus.ownedLocally(aggregateClass, key.aggregateId()));
+    LOGGER.info(aggregateClass.getSimpleName() + " cache swept for routing table version " + table.version());
+  }
+
 
   private void injectProjectionPollers() {
     MAIN_MODULES.add(
@@ -125,13 +146,15 @@ public class AggregateResources<T extends Aggregate> {
         StateProjectionPoller<T> stateProjectionPoller(
           final List<StateProjectionWrapper<T>> projections,
           final EventStore eventStore,
-          final OffsetStore offsetStore
+          final OffsetStore offsetStore,
+          final AggregateCache cache
         ) {
           return new StateProjectionPoller<>(
             projections,
             new AggregateEventBusClient<>(vertx, aggregateClass),
             eventStore,
-            offsetStore
+            offsetStore,
+            cache
           );
         }
 
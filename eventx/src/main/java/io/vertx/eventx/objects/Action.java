@@ -1,5 +1,5 @@
 package io.vertx.eventx.objects;
 
 public enum Action {
-  COMMAND, LOAD
+  COMMAND, LOAD, CATCH_UP
 }
@@ -6,12 +6,27 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 public class AggregateConfiguration {
   private Boolean useCache = true;
   private Long aggregateCacheTtlInMinutes = 20L;
+  private Long aggregateCacheMaxSizeInMb = 256L;
+  private Long aggregateCacheOffHeapSizeInMb = 0L;
+  private Boolean aggregateCacheSoftValues = false;
+  private Boolean aggregateCacheStats = true;
   private Boolean snapshots = true;
   private Integer snapshotEvery = 10;
-  private Integer maxNumberOfCommandsForIdempotency = 50;
+  private Integer maxNumberOfCommandsForIdempotency = 100;
   private OperationMode operationMode = OperationMode.PROD;
   private Boolean replication = false;
   private Integer handlerHeartBeatInterval = 1000;
+  private Integer maxCommandBatchSize = 32;
+  private Long busMinTimeoutInMs = 250L;
+  private Long busMaxTimeoutInMs = 10000L;
+  private Double busTimeoutPercentile = 0.99;
+  private Double busTimeoutMultiplier = 2.0;
+  private Integer busRetries = 3;
+  private Long busRetryBackoffInMs = 20L;
+  private Boolean busHedging = false;
+  private Double busHedgePercentile = 0.95;
+  private Double traceSampleRate = 0D;
+  private Boolean durableIdempotency = true;
 
   public Integer handlerHeartBeatInterval() {
     return handlerHeartBeatInterval;
@@ -61,6 +76,42 @@ public class AggregateConfiguration {
     return this;
   }
 
+  public Long aggregateCacheMaxSizeInMb() {
+    return aggregateCacheMaxSizeInMb;
+  }
+
+  public AggregateConfiguration setAggregateCacheMaxSizeInMb(final Long aggregateCacheMaxSizeInMb) {
+    this.aggregateCacheMaxSizeInMb = aggregateCacheMaxSizeInMb;
+    return this;
+  }
+
+  public Long aggregateCacheOffHeapSizeInMb() {
+    return aggregateCacheOffHeapSizeInMb;
+  }
+
+  public AggregateConfiguration setAggregateCacheOffHeapSizeInMb(final Long aggregateCacheOffHeapSizeInMb) {
+    this.aggregateCacheOffHeapSizeInMb = aggregateCacheOffHeapSizeInMb;
+    return this;
+  }
+
+  public Boolean aggregateCacheSoftValues() {
+    return aggregateCacheSoftValues;
+  }
+
+  public AggregateConfiguration setAggregateCacheSoftValues(final Boolean aggregateCacheSoftValues) {
+    this.aggregateCacheSoftValues = aggregateCacheSoftValues;
+    return this;
+  }
+
+  public Boolean aggregateCacheStats() {
+    return aggregateCacheStats;
+  }
+
+  public AggregateConfiguration setAggregateCacheStats(final Boolean aggregateCacheStats) {
+    this.aggregateCacheStats = aggregateCacheStats;
+    return this;
+  }
+
   public Boolean useCache() {
     return useCache;
   }
@@ -87,4 +138,103 @@ public class AggregateConfiguration {
     this.maxNumberOfCommandsForIdempotency = maxNumberOfCommandsForIdempotency;
     return this;
   }
+
+  public Integer maxCommandBatchSize() {
+    return maxCommandBatchSize;
+  }
+
+  public AggregateConfiguration setMaxCommandBatchSize(final Integer maxCommandBatchSize) {
+    this.maxCommandBatchSize = maxCommandBatchSize;
+    return this;
+  }
+
+  public Long busMinTimeoutInMs() {
+    return busMinTimeoutInMs;
+  }
+
+  public AggregateConfiguration setBusMinTimeoutInMs(final Long busMinTimeoutInMs) {
+    this.busMinTimeoutInMs = busMinTimeoutInMs;
+    return this;
+  }
+
+  public Long busMaxTimeoutInMs() {
+    return busMaxTimeoutInMs;
+  }
+
+  public AggregateConfiguration setBusMaxTimeoutInMs(final Long busMaxTimeoutInMs) {
+    this.busMaxTimeoutInMs = busMaxTimeoutInMs;
+    return this;
+  }
+
+  public Double busTimeoutPercentile() {
+    return busTimeoutPercentile;
+  }
+
+  public AggregateConfiguration setBusTimeoutPercentile(final Double busTimeoutPercentile) {
+    this.busTimeoutPercentile = busTimeoutPercentile;
+    return this;
+  }
+
+  public Double busTimeoutMultiplier() {
+    return busTimeoutMultiplier;
+  }
+
+  public AggregateConfiguration setBusTimeoutMultiplier(final Double busTimeoutMultiplier) {
+    this.busTimeoutMultiplier = busTimeoutMultiplier;
+    return this;
+  }
+
+  public Integer busRetries() {
+    return busRetries;
+  }
+
+  public AggregateConfiguration setBusRetries(final Integer busRetries) {
+    this.busRetries = busRetries;
+    return this;
+  }
+
+  public Long busRetryBackoffInMs() {
+    return busRetryBackoffInMs;
+  }
+
+  public AggregateConfiguration setBusRetryBackoffInMs(final Long busRetryBackoffInMs) {
+    this.busRetryBackoffInMs = busRetryBackoffInMs;
+    return this;
+  }
+
+  public Boolean busHedging() {
+    return busHedging;
+  }
+
+  public AggregateConfiguration setBusHedging(final Boolean busHedging) {
+    this.busHedging = busHedging;
+    return this;
+  }
+
+  public Double busHedgePercentile() {
+    return busHedgePercentile;
+  }
+
+  public AggregateConfiguration setBusHedgePercentile(final Double busHedgePercentile) {
+    this.busHedgePercentile = busHedgePercentile;
+    return this;
+  }
+
+  public Double traceSampleRate() {
+    return traceSampleRate;
+  }
+
+  public AggregateConfiguration setTraceSampleRate(final Double traceSampleRate) {
+    this.traceSampleRate = traceSampleRate;
+    return this;
+  }
+
+  public Boolean durableIdempotency() {
+    return durableIdempotency;
+  }
+
+  public AggregateConfiguration setDurableIdempotency(final Boolean durableIdempotency) {
+    this.durableIdempotency = durableIdempotency;
+    return this;
+  }
 }
@@ -1,7 +1,6 @@
 package io.vertx.eventx.objects;
 
 
-import com.google.common.collect.EvictingQueue;
 import io.vertx.eventx.Aggregate;
 
 import io.vertx.core.shareddata.Shareable;
@@ -9,15 +8,46 @@ import io.vertx.core.shareddata.Shareable;
 import java.util.List;
 
 public class AggregateState<T extends Aggregate> implements Shareable {
+  public static final int DEFAULT_IDEMPOTENCY_WINDOW = 100;
 
   private final Class<T> aggregateClass;
   private T state = null;
-  private final EvictingQueue<String> knownCommands = EvictingQueue.create(100);
+  private CommandWindow knownCommands;
   private Long snapshotOffset = null;
+  private Long journalOffset = null;
   private Long currentVersion = null;
+  // only ever moved forward by the owner, read by the catch-up poller
+  private volatile Long projectedOffset = null;
+  // last known encoded size of the state, lets the cache weigh it without encoding it on every put
+  private int encodedSize = -1;
+  private long encodedAtVersion = 0L;
 
   public AggregateState(Class<T> aggregateClass) {
+    this(aggregateClass, DEFAULT_IDEMPOTENCY_WINDOW);
+  }
+
+  public AggregateState(Class<T> aggregateClass, int idempotencyWindow) {
     this.aggregateClass = aggregateClass;
+    this.knownCommands = new CommandWindow(idempotencyWindow);
+  }
+
+  private AggregateState(AggregateState<T> state) {
+    this.aggregateClass = state.aggregateClass;
+    this.state = state.state;
+    this.knownCommands = state.knownCommands.copy();
+    this.snapshotOffset = state.snapshotOffset;
+    this.journalOffset = state.journalOffset;
+    this.currentVersion = state.currentVersion;
+    this.projectedOffset = state.projectedOffset;
+    this.encodedSize = state.encodedSize;
+    this.encodedAtVersion = state.encodedAtVersion;
+  }
+
+  /**
+   * Cached states are shared between contexts, updates are made on a copy that then replaces the cached one.
+   */
+  public AggregateState<T> copy() {
+    return new AggregateState<>(this);
   }
 
   public Long snapshotOffset() {
@@ -29,6 +59,49 @@ public class AggregateState<T extends Aggregate> implements Shareable {
     return this;
   }
 
+  public Long journalOffset() {
+    return journalOffset;
+  }
+
+  public AggregateState<T> setJournalOffset(Long journalOffset) {
+    this.journalOffset = journalOffset;
+    return this;
+  }
+
+  public Long projectedOffset() {
+    return projectedOffset;
+  }
+
+  public AggregateState<T> setProjectedOffset(Long projectedOffset) {
+    this.projectedOffset = projectedOffset;
+    return this;
+  }
+
+  /**
+   * @return the size of the state when it was last encoded, -1 if it never was.
+   */
+  public int encodedSize() {
+    return encodedSize;
+  }
+
+  public long encodedAtVersion() {
+    return encodedAtVersion;
+  }
+
+  public AggregateState<T> setEncodedSize(int encodedSize) {
+    this.encodedSize = encodedSize;
+    this.encodedAtVersion = currentVersion == null ? 0L : currentVersion;
+    return this;
+  }
+
+  /**
+   * @return true if the state projections were handed the state at its current journal offset.
+   * States restored from a cache tier or a snapshot don't carry the projected offset and count as behind.
+   */
+  public boolean projected() {
+    return journalOffset == null || (projectedOffset != null && projectedOffset >= journalOffset);
+  }
+
   public Class<T> aggregateClass() {
     return aggregateClass;
   }
@@ -51,20 +124,40 @@ public class AggregateState<T extends Aggregate> implements Shareable {
     return this;
   }
 
-  public EvictingQueue<String> knownCommands() {
+  public CommandWindow knownCommands() {
     return knownCommands;
   }
 
-  public AggregateState<T> addKnownCommand(String commandId) {
-    if (!knownCommands.contains(commandId)) {
-      knownCommands.add(commandId);
+  public AggregateState<T> setKnownCommands(CommandWindow knownCommands) {
+    this.knownCommands = knownCommands;
+    return this;
+  }
+
+  /**
+   * Resizes the idempotency window, keeping the newest command ids when it shrinks.
+   */
+  public AggregateState<T> setIdempotencyWindow(int idempotencyWindow) {
+    if (knownCommands.capacity() != idempotencyWindow) {
+      this.knownCommands = knownCommands.resize(idempotencyWindow);
     }
     return this;
   }
+
+  /**
+   * @return true if every command applied to the aggregate is still in the window, which is the case unless
+   * the window overflowed or the state was restored from a snapshot.
+   */
+  public boolean knowsAllCommands() {
+    return snapshotOffset == null && !knownCommands.evicted();
+  }
+
+  public AggregateState<T> addKnownCommand(String commandId) {
+    knownCommands.add(commandId);
+    return this;
+  }
+
   public AggregateState<T> addKnownCommands(List<String> commandIds) {
-    commandIds.stream()
-      .filter(cmd -> !knownCommands.contains(cmd))
-      .forEach(knownCommands::add);
+    knownCommands.addAll(commandIds);
     return this;
   }
 }
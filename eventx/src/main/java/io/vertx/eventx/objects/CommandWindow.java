@@ -0,0 +1,109 @@
+package io.vertx.eventx.objects;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Bounded idempotency window of the last command ids applied to an aggregate.
+ * <p>
+ * Ids are kept in insertion order in a ring, a hash set mirrors the ring for constant time lookups.
+ * Once full, adding an id evicts the oldest one. Not thread safe, owned by the aggregate state.
+ */
+public final class CommandWindow {
+
+  private final String[] ring;
+  private final HashSet<String> index;
+  private int head = 0;
+  private int size = 0;
+  private boolean evicted = false;
+
+  public CommandWindow(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Idempotency window must be greater than 0");
+    }
+    this.ring = new String[capacity];
+    this.index = new HashSet<>((int) (capacity / 0.75f) + 1);
+  }
+
+  public boolean contains(String commandId) {
+    return index.contains(commandId);
+  }
+
+  /**
+   * @return false if the id was already in the window.
+   */
+  public boolean add(String commandId) {
+    if (commandId == null || !index.add(commandId)) {
+      return false;
+    }
+    if (size == ring.length) {
+      index.remove(ring[head]);
+      evicted = true;
+    } else {
+      size++;
+    }
+    ring[head] = commandId;
+    head = (head + 1) % ring.length;
+    return true;
+  }
+
+  public CommandWindow addAll(Collection<String> commandIds) {
+    commandIds.forEach(this::add);
+    return this;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int capacity() {
+    return ring.length;
+  }
+
+  /**
+   * @return true once an id has been pushed out of the window.
+   */
+  public boolean evicted() {
+    return evicted;
+  }
+
+  /**
+   * Rebuilds a window from its ids, oldest first, as returned by {@link #toList()}.
+   */
+  public static CommandWindow restore(int capacity, List<String> commandIds, boolean evicted) {
+    final var window = new CommandWindow(capacity).addAll(commandIds);
+    window.evicted |= evicted;
+    return window;
+  }
+
+  /**
+   * @return a copy of the window with the given capacity, keeping the newest ids.
+   */
+  public CommandWindow resize(int capacity) {
+    return restore(capacity, toList(), evicted);
+  }
+
+  public CommandWindow copy() {
+    return resize(ring.length);
+  }
+
+  /**
+   * @return the ids from the oldest to the newest.
+   */
+  public List<String> toList() {
+    final var ids = new ArrayList<String>(size);
+    final var oldest = size == ring.length ? head : 0;
+    for (int i = 0; i < size; i++) {
+      ids.add(ring[(oldest + i) % ring.length]);
+    }
+    return ids;
+  }
+
+  public Stream<String> stream() {
+    return toList().stream();
+  }
+
+}
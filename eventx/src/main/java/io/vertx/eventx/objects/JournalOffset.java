@@ -15,7 +15,7 @@ public record JournalOffset(
   public JournalOffset updateOffset(List<Event> events) {
     final var eventIdOffset = events.stream().map(Event::journalOffset)
       .max(Comparator.naturalOrder())
-      .orElseThrow();
+      .orElse(idOffSet);
     return new JournalOffset(consumer, tenantId, eventIdOffset, null);
   }
 }